@@ -0,0 +1,78 @@
+package Interpreter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.List;
+
+import Lexer.Lexer;
+import Parser.Parser;
+import Parser.ProgramNode;
+
+/**
+ * runs a program over records files of 10k, 100k, 1M and 10M records and prints the time per record. with a
+ * constant time dequeue the time per record stays flat as the file grows
+ *
+ * usage: java -cp out:bench-out Interpreter.RecordScalingBenchmark [--mmap]
+ */
+public class RecordScalingBenchmark {
+
+    private static final int[] RECORD_COUNTS = {10_000, 100_000, 1_000_000, 10_000_000};
+
+    private static final int WARMUP_RECORDS = 1_000_000;
+
+    private static final int WARMUP_RUNS = 5;
+
+    //touches every record, and the second field of it, without printing anything
+    private static final String PROGRAM = "{ n = n + 1\ns = s + $2 }\n";
+
+    public static void main(String[] args) throws IOException {
+        InterpreterOptions options = new InterpreterOptions();
+        options.memoryMapped = args.length > 0 && args[0].equals("--mmap");
+        Lexer lex = new Lexer(PROGRAM);
+        lex.Lex();
+        ProgramNode program = new Parser(lex.lexedTokens).parse();
+
+        Path dir = Files.createTempDirectory("awk-records");
+        try{
+            //a few untimed runs first, so the jit has compiled the record loop before anything is timed
+            Path warmup = writeRecords(dir, WARMUP_RECORDS);
+            for(int i = 0; i < WARMUP_RUNS; i++){
+                run(program, warmup, options);
+            }
+            Files.delete(warmup);
+
+            for(int count : RECORD_COUNTS){
+                Path records = writeRecords(dir, count);
+                long nanos = run(program, records, options);
+                System.out.printf("%,12d records: %8.1f ms, %6.1f ns per record%n", count, nanos / 1e6,
+                        (double) nanos / count);
+                Files.delete(records);
+            }
+        }
+        finally{
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * @return how long the program took over the file, in nanoseconds
+     */
+    private static long run(ProgramNode program, Path records, InterpreterOptions options) throws IOException {
+        long start = System.nanoTime();
+        Interpreter interpreter = new Interpreter(program, new LinkedList<>(List.of(records.toString())), options);
+        interpreter.InterpretProgram();
+        return System.nanoTime() - start;
+    }
+
+    private static Path writeRecords(Path dir, int count) throws IOException {
+        Path records = dir.resolve("records-" + count + ".txt");
+        try(BufferedWriter writer = Files.newBufferedWriter(records)){
+            for(int i = 0; i < count; i++){
+                writer.write("user" + (i % 1000) + " " + (i % 97) + " some more text\n");
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,100 @@
+package Interpreter;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * compares StringTable with the HashMap IADT used before it, for count[$1]++ over distinct keys that each turn up
+ * twice. prints the heap each one holds per entry, including the value of the element but not the key string, and
+ * the time per key
+ *
+ * usage: java -cp out:bench-out Interpreter.StringTableBenchmark [keys] [passes]
+ */
+public class StringTableBenchmark {
+
+    //holds the last table counted into, so it is still reachable when the heap is measured and the jit can not
+    //drop the counting
+    private static Object keepAlive;
+
+    private static final NumberFormatter formatter = new NumberFormatter();
+
+    public static void main(String[] args){
+        int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        String[] keys = new String[keyCount];
+        for(int i = 0; i < keyCount; i++){
+            //not small integers, so IADT would keep them in its StringTable rather than its dense array
+            keys[i] = "key" + i;
+        }
+        //keys made in order hash to nearly consecutive HashMap buckets, which no real input does
+        Random random = new Random(42);
+        for(int i = keyCount - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            String swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+
+        //every entry is counted, values and all. only the keys, which are the same for both, are left out
+        long before = usedHeap();
+        countInto(new HashMap<>(), keys);
+        long mapBytes = usedHeap() - before;
+        keepAlive = null;
+        System.out.println("HashMap     " + keyCount + " keys: " + mapBytes / keyCount + " bytes per entry");
+
+        before = usedHeap();
+        countInto(new StringTable(0, formatter), keys);
+        long tableBytes = usedHeap() - before;
+        keepAlive = null;
+        System.out.println("StringTable " + keyCount + " keys: " + tableBytes / keyCount + " bytes per entry");
+
+        //the first passes warm up the jit, the last one is the one that counts
+        for(int pass = 1; pass <= passes; pass++){
+            long start = System.nanoTime();
+            countInto(new HashMap<>(), keys);
+            long mapNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            countInto(new StringTable(0, formatter), keys);
+            long tableNanos = System.nanoTime() - start;
+            System.out.println("pass " + pass + ": HashMap " + mapNanos / keyCount + " ns per key, StringTable "
+                    + tableNanos / keyCount + " ns per key");
+        }
+    }
+
+    /**
+     * counts every key twice, as count[$1]++ does on input where each key turns up twice
+     */
+    private static void countInto(HashMap<String, IDT> map, String[] keys){
+        for(int round = 0; round < 2; round++){
+            for(String key : keys){
+                IDT count = map.get(key);
+                if(count == null){
+                    count = new IDT("0");
+                    map.put(key, count);
+                }
+                count.setNumber(count.getNumber() + 1, formatter);
+            }
+        }
+        keepAlive = map;
+    }
+
+    /**
+     * counts the way the interpreter does, through the element the table hands out
+     */
+    private static void countInto(StringTable table, String[] keys){
+        for(int round = 0; round < 2; round++){
+            for(String key : keys){
+                IDT count = table.getOrCreate(key);
+                count.setNumber(count.getNumber() + 1, formatter);
+            }
+        }
+        keepAlive = table;
+    }
+
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
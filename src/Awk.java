@@ -2,7 +2,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.LinkedList;
 
 
 import Lexer.*;
@@ -12,26 +13,41 @@ import Interpreter.*;
 public class Awk {
     public static void main(String[] args) throws IOException {
        //argument 0, the awk program file
-        //argument 1, the optional txt records file
+        //arguments 1..n, the optional txt records files
+        //options starting with -- may be given before the awk program file
 
-        String filestring;
-        Optional<String> recordPath;
-        //records file attached
-        if(args.length == 2){
-            Path filepath = Paths.get(args[0]);
-             filestring = new String(Files.readAllBytes(filepath));
-             recordPath = Optional.of(args[1]);
+        InterpreterOptions options = new InterpreterOptions();
+        int argIndex = 0;
+        while(argIndex < args.length && args[argIndex].startsWith("--")){
+            if(args[argIndex].equals("--mmap")){
+                options.memoryMapped = true;
+            }
+            else if(args[argIndex].equals("--async-output")){
+                options.asyncOutput = true;
+            }
+            else if(args[argIndex].equals("--csv")){
+                options.csv = true;
+            }
+            else if(args[argIndex].equals("--json")){
+                options.json = true;
+            }
+            else if(args[argIndex].equals("--follow")){
+                options.follow = true;
+            }
+            else{
+                throw new RuntimeException("unknown option passed to awkinterp: " + args[argIndex]);
+            }
+            argIndex++;
         }
-        //no records file
-        else if(args.length == 1){
-            Path filepath = Paths.get(args[0]);
-            filestring = new String(Files.readAllBytes(filepath));
-            recordPath = Optional.empty();
-        }
-        else{
+
+        if(argIndex >= args.length){
             throw new RuntimeException("incorrect arguments passed to awkinterp. expected path to awk program at arg 0, " +
-                    "optional path to record file at arg 1");
+                    "followed by optional paths to record files");
         }
+        Path filepath = Paths.get(args[argIndex]);
+        String filestring = new String(Files.readAllBytes(filepath));
+        //every argument after the program is a records file, processed in order
+        LinkedList<String> recordPaths = new LinkedList<>(Arrays.asList(args).subList(argIndex + 1, args.length));
 
         //create new lexer and lex tokens
         Lexer lex = new Lexer(filestring);
@@ -40,7 +56,7 @@ public class Awk {
         Parser parser = new Parser(lex.lexedTokens);
         ProgramNode program = parser.parse();
         //create new interpreter and interpret the program
-        Interpreter interp = new Interpreter(program, recordPath);
+        Interpreter interp = new Interpreter(program, recordPaths, options);
         interp.InterpretProgram();
     }
 }
@@ -0,0 +1,24 @@
+package Interpreter;
+import java.io.IOException;
+
+/**
+ * thrown when whoever was reading output went away, as head does once it has printed enough lines. awk is stopped
+ * by SIGPIPE at that point, so the interpreter stops without reporting an error
+ */
+public class BrokenPipeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BrokenPipeException(IOException cause){
+        super("output pipe closed \n" + cause);
+    }
+
+    /**
+     * @return true if a write failed because the other end of the pipe was closed. java only reports EPIPE
+     * through the message, and closes the pipe to a command itself once the command exits
+     */
+    public static boolean isBrokenPipe(IOException e){
+        String message = e.getMessage();
+        return message != null && (message.contains("Broken pipe") || message.equals("Stream closed"));
+    }
+}
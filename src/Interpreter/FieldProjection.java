@@ -0,0 +1,202 @@
+package Interpreter;
+import Parser.*;
+import java.util.LinkedList;
+
+/**
+ * a pass over the program that works out which fields it can ever look at. when every field reference is a
+ * constant like $3, NF is never used and no field is ever assigned, records only have to be split up to the
+ * highest field referenced
+ */
+public class FieldProjection {
+
+    //returned by highestField when the program can look at any field
+    public static final int ALL_FIELDS = -1;
+
+    private int highest;
+
+    private boolean dynamic;
+
+    private FieldProjection(){
+        highest = 0;
+        dynamic = false;
+    }
+
+    /**
+     * @return the highest field the program references, or ALL_FIELDS if it references a field through an
+     * expression ($i, $NF), uses NF or assigns a field, in which case every field has to be split
+     */
+    public static int highestField(ProgramNode program){
+        FieldProjection projection = new FieldProjection();
+        for(FunctionNode function : program.getFunctions()){
+            projection.visitStatements(function.getStatements());
+        }
+        for(BlockNode block : program.getStartBlocks()){
+            projection.visitBlock(block);
+        }
+        for(BlockNode block : program.getBlocks()){
+            projection.visitBlock(block);
+        }
+        for(BlockNode block : program.getEndBlocks()){
+            projection.visitBlock(block);
+        }
+        return projection.dynamic ? ALL_FIELDS : projection.highest;
+    }
+
+    private void visitBlock(BlockNode block){
+        if(block == null){
+            return;
+        }
+        if(block.getCondition().isPresent()){
+            visit(block.getCondition().get());
+        }
+        visitStatements(block.getStatements());
+    }
+
+    private void visitStatements(LinkedList<StatementNode> statements){
+        for(StatementNode statement : statements){
+            visit(statement);
+        }
+    }
+
+    private void visit(Node current){
+        //nothing left to learn once every field is needed
+        if(current == null || dynamic){
+            return;
+        }
+        if(current instanceof OperationNode){
+            OperationNode op = (OperationNode) current;
+            if(op.isIncDecUnary() && op.getOpType() != OperationNode.operationType.UNARYPOS
+                    && op.getOpType() != OperationNode.operationType.UNARYNEG){
+                visitWrite(op.getLeft());
+            }
+            if(op.getOpType() == OperationNode.operationType.DOLLAR){
+                visitField(op.getLeft());
+                return;
+            }
+            visit(op.getLeft());
+            if(op.getRight() != null && op.getRight().isPresent()){
+                visit(op.getRight().get());
+            }
+        }
+        else if(current instanceof VariableReferenceNode){
+            VariableReferenceNode var = (VariableReferenceNode) current;
+            if(var.getVariableName().equals("NF")){
+                dynamic = true;
+                return;
+            }
+            if(var.getArrayIndex().isPresent()){
+                visit(var.getArrayIndex().get());
+            }
+        }
+        else if(current instanceof AssignmentNode){
+            AssignmentNode assign = (AssignmentNode) current;
+            visitWrite(assign.getLeftside());
+            visit(assign.getLeftside());
+            if(assign.getRightSide().isPresent()){
+                visit(assign.getRightSide().get());
+            }
+        }
+        else if(current instanceof FunctionCallNode){
+            FunctionCallNode call = (FunctionCallNode) current;
+            //the built ins that assign to the variable or field they are passed
+            String name = call.getFuncName().getVariableName();
+            if(name.equals("sub") || name.equals("gsub") || name.equals("getline")){
+                for(Node param : call.getParams()){
+                    visitWrite(param);
+                }
+            }
+            for(Node param : call.getParams()){
+                visit(param);
+            }
+            if(call.getRedirectTarget().isPresent()){
+                visit(call.getRedirectTarget().get());
+            }
+        }
+        else if(current instanceof TernaryNode){
+            TernaryNode ternary = (TernaryNode) current;
+            visit(ternary.getCondition());
+            visit(ternary.getTruthExpression());
+            visit(ternary.getFalseExpression());
+        }
+        else if(current instanceof IfNode){
+            IfNode ifNode = (IfNode) current;
+            if(ifNode.getCondition().isPresent()){
+                visit(ifNode.getCondition().get());
+            }
+            visitBlock(ifNode.getStatements());
+            if(ifNode.getNext().isPresent()){
+                visit(ifNode.getNext().get());
+            }
+        }
+        else if(current instanceof WhileNode){
+            WhileNode whileNode = (WhileNode) current;
+            if(whileNode.getCondition().isPresent()){
+                visit(whileNode.getCondition().get());
+            }
+            visitBlock(whileNode.getStatements());
+        }
+        else if(current instanceof DoWhileNode){
+            DoWhileNode doWhile = (DoWhileNode) current;
+            if(doWhile.getCondition().isPresent()){
+                visit(doWhile.getCondition().get());
+            }
+            visitBlock(doWhile.getStatements());
+        }
+        else if(current instanceof ForNode){
+            ForNode forNode = (ForNode) current;
+            visit(forNode.getInitialization());
+            visit(forNode.getCondition());
+            visit(forNode.getOperation());
+            visitBlock(forNode.getStatements());
+        }
+        else if(current instanceof ForEachNode){
+            ForEachNode forEach = (ForEachNode) current;
+            visit(forEach.getArrayExp());
+            visitBlock(forEach.getStatements());
+        }
+        else if(current instanceof ReturnNode){
+            ReturnNode ret = (ReturnNode) current;
+            if(ret.getReturnVal().isPresent()){
+                visit(ret.getReturnVal().get());
+            }
+        }
+        else if(current instanceof DeleteNode){
+            DeleteNode delete = (DeleteNode) current;
+            if(delete.getIndexes().isPresent()){
+                for(Object index : delete.getIndexes().get()){
+                    visit((Node) index);
+                }
+            }
+        }
+        //constants, patterns, break and continue reference no fields
+    }
+
+    /**
+     * a field that is assigned changes $0, which is rebuilt from every field, so every field has to be split.
+     * assigning $0 itself only splits the new record
+     */
+    private void visitWrite(Node target){
+        if(!(target instanceof OperationNode) || ((OperationNode) target).getOpType() != OperationNode.operationType.DOLLAR){
+            return;
+        }
+        Node index = ((OperationNode) target).getLeft();
+        if(!(index instanceof ConstantNode) || !((ConstantNode) index).getValue().matches("0+(\\.0*)?")){
+            dynamic = true;
+        }
+    }
+
+    /**
+     * records a field reference. only a constant index can be known ahead of time
+     */
+    private void visitField(Node index){
+        if(!(index instanceof ConstantNode)){
+            dynamic = true;
+            return;
+        }
+        double field = NumberScanner.parse(((ConstantNode) index).getValue());
+        //$"key" looks a key up in a json record, it is not a numbered field
+        if(!Double.isNaN(field)){
+            highest = Math.max(highest, (int) field);
+        }
+    }
+}
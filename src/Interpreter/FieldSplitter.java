@@ -0,0 +1,305 @@
+package Interpreter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * splits records into fields the way awk does. the default FS of a single space splits on runs of blanks
+ * and ignores leading and trailing blanks, any other single character is split on literally, and only a
+ * longer FS is treated as a regular expression. when FIELDWIDTHS is set, FS is ignored and fields are cut at
+ * fixed widths. in csv mode FS is ignored and records are split by a single pass state machine that understands
+ * quoted fields. fields are returned as start and end offsets into the record
+ */
+public class FieldSplitter {
+
+    private enum splitterType{
+        WHITESPACE, CHARACTER, REGEX, CSV, WIDTHS
+    }
+
+    private String separator;
+
+    private boolean paragraphMode;
+
+    private splitterType type;
+
+    private char character;
+
+    //compiled once for each regex FS, instead of on every record
+    private Pattern pattern;
+
+    //the offsets of the fields found by the last split
+    private int[] starts;
+
+    private int[] ends;
+
+    //true for a quoted csv field holding doubled quotes, which have to be unescaped
+    private boolean[] escaped;
+
+    private boolean csv;
+
+    //FIELDWIDTHS, and the widths it lists. a width of -1 stands for the rest of the record
+    private String widthList;
+
+    private int[] widths;
+
+    public FieldSplitter(){
+        starts = new int[16];
+        ends = new int[16];
+        escaped = new boolean[16];
+        setSeparator(" ", false, "");
+    }
+
+    /**
+     * switches csv mode on or off. in csv mode the field separator is ignored
+     */
+    public void setCsv(boolean csvFields){
+        csv = csvFields;
+        separator = null;
+    }
+
+    /**
+     * @param fs the field separator
+     * @param paragraph true when RS is empty, in which case newlines separate fields as well as FS
+     * @param fieldWidths the value of FIELDWIDTHS. when it is not empty it is used instead of FS
+     */
+    public void setSeparator(String fs, boolean paragraph, String fieldWidths){
+        if(fs.equals(separator) && paragraph == paragraphMode && fieldWidths.equals(widthList)){
+            return;
+        }
+        separator = fs;
+        paragraphMode = paragraph;
+        widthList = fieldWidths;
+        pattern = null;
+        if(csv){
+            type = splitterType.CSV;
+        }
+        else if(!fieldWidths.trim().isEmpty()){
+            type = splitterType.WIDTHS;
+            widths = parseWidths(fieldWidths);
+        }
+        else if(fs.equals(" ")){
+            type = splitterType.WHITESPACE;
+        }
+        else if(fs.length() == 1){
+            type = splitterType.CHARACTER;
+            character = fs.charAt(0);
+        }
+        else{
+            type = splitterType.REGEX;
+            pattern = Pattern.compile(paragraph ? "(?:" + fs + ")|\n" : fs);
+        }
+    }
+
+    /**
+     * splits a record into fields
+     * @param record the record to split
+     * @param limit the most fields to find, or FieldProjection.ALL_FIELDS to find all of them. the rest of
+     *              the record past the last field found is ignored
+     * @return how many fields were found. their offsets are available from getStart and getEnd
+     */
+    public int split(String record, int limit){
+        if(limit == FieldProjection.ALL_FIELDS){
+            limit = Integer.MAX_VALUE;
+        }
+        if(type == splitterType.WHITESPACE){
+            return splitWhitespace(record, limit);
+        }
+        //an empty record has no fields, whatever FS is
+        if(record.isEmpty() || limit == 0){
+            return 0;
+        }
+        if(type == splitterType.CHARACTER){
+            return splitCharacter(record, limit);
+        }
+        if(type == splitterType.CSV){
+            return splitCsv(record, limit);
+        }
+        if(type == splitterType.WIDTHS){
+            return splitWidths(record, limit);
+        }
+        return splitRegex(record, limit);
+    }
+
+    public int getStart(int field){
+        return starts[field];
+    }
+
+    public int getEnd(int field){
+        return ends[field];
+    }
+
+    /**
+     * @return true if the field has to be passed through unescape to get its value
+     */
+    public boolean isEscaped(int field){
+        return escaped[field];
+    }
+
+    /**
+     * @return the value of a quoted csv field, with every doubled quote turned into a single quote
+     */
+    public static String unescape(String record, int start, int end){
+        return record.substring(start, end).replace("\"\"", "\"");
+    }
+
+    private int splitWhitespace(String record, int limit){
+        int count = 0;
+        int length = record.length();
+        int i = 0;
+        while(count < limit){
+            while(i < length && isBlank(record.charAt(i))){
+                i++;
+            }
+            if(i == length){
+                break;
+            }
+            int start = i;
+            while(i < length && !isBlank(record.charAt(i))){
+                i++;
+            }
+            addField(count++, start, i);
+        }
+        return count;
+    }
+
+    private int splitCharacter(String record, int limit){
+        int count = 0;
+        int length = record.length();
+        int start = 0;
+        for(int i = 0; i < length && count < limit; i++){
+            char c = record.charAt(i);
+            if(c == character || (paragraphMode && c == '\n')){
+                addField(count++, start, i);
+                start = i + 1;
+            }
+        }
+        if(count < limit){
+            addField(count++, start, length);
+        }
+        return count;
+    }
+
+    private int splitRegex(String record, int limit){
+        int count = 0;
+        int start = 0;
+        Matcher match = pattern.matcher(record);
+        while(count < limit && match.find()){
+            //a separator that matches nothing would split between every character, so it is skipped
+            if(match.end() == match.start()){
+                continue;
+            }
+            addField(count++, start, match.start());
+            start = match.end();
+        }
+        if(count < limit){
+            addField(count++, start, record.length());
+        }
+        return count;
+    }
+
+    /**
+     * @param fieldWidths space separated field widths. the last one may be * for the rest of the record
+     */
+    private static int[] parseWidths(String fieldWidths){
+        String[] parts = fieldWidths.trim().split("[ \t]+");
+        int[] parsed = new int[parts.length];
+        for(int i = 0; i < parts.length; i++){
+            if(parts[i].equals("*") && i == parts.length - 1){
+                parsed[i] = -1;
+                continue;
+            }
+            try{
+                parsed[i] = Integer.parseInt(parts[i]);
+            }
+            catch(NumberFormatException e){
+                parsed[i] = 0;
+            }
+            if(parsed[i] <= 0){
+                throw new RuntimeException("invalid FIELDWIDTHS " + fieldWidths + ". expected positive widths, optionally ending in *");
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * fields are found from the widths alone, without looking at the characters of the record
+     */
+    private int splitWidths(String record, int limit){
+        int count = 0;
+        int length = record.length();
+        int position = 0;
+        for(int i = 0; i < widths.length && count < limit && position < length; i++){
+            int end = widths[i] == -1 ? length : Math.min(position + widths[i], length);
+            addField(count++, position, end);
+            position = end;
+        }
+        return count;
+    }
+
+    private int splitCsv(String record, int limit){
+        int count = 0;
+        int length = record.length();
+        int i = 0;
+        while(count < limit){
+            if(i < length && record.charAt(i) == '"'){
+                //quoted field. commas and newlines inside it are part of the field, "" stands for a quote
+                int start = ++i;
+                boolean doubled = false;
+                while(i < length){
+                    if(record.charAt(i) == '"'){
+                        if(i + 1 < length && record.charAt(i + 1) == '"'){
+                            doubled = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                addField(count, start, i, doubled);
+                count++;
+                //anything between the closing quote and the next comma is not part of the field
+                while(i < length && record.charAt(i) != ','){
+                    i++;
+                }
+            }
+            else{
+                int start = i;
+                while(i < length && record.charAt(i) != ','){
+                    i++;
+                }
+                addField(count++, start, i);
+            }
+            if(i >= length){
+                break;
+            }
+            //past the comma. a comma at the very end of the record is followed by one more empty field
+            i++;
+        }
+        return count;
+    }
+
+    private static boolean isBlank(char c){
+        return c == ' ' || c == '\t' || c == '\n';
+    }
+
+    private void addField(int field, int start, int end){
+        addField(field, start, end, false);
+    }
+
+    private void addField(int field, int start, int end, boolean needsUnescape){
+        if(field == starts.length){
+            int[] newStarts = new int[starts.length * 2];
+            int[] newEnds = new int[ends.length * 2];
+            boolean[] newEscaped = new boolean[escaped.length * 2];
+            System.arraycopy(starts, 0, newStarts, 0, starts.length);
+            System.arraycopy(ends, 0, newEnds, 0, ends.length);
+            System.arraycopy(escaped, 0, newEscaped, 0, escaped.length);
+            starts = newStarts;
+            ends = newEnds;
+            escaped = newEscaped;
+        }
+        starts[field] = start;
+        ends[field] = end;
+        escaped[field] = needsUnescape;
+    }
+}
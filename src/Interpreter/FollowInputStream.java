@@ -0,0 +1,142 @@
+package Interpreter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * reads a file that is still being written to, like tail -f. instead of ending at the end of the file, reads wait
+ * for more to be appended. a file that is truncated is read again from the start, and a file that is rotated
+ * (replaced by a new file under the same name) is finished and then the new file is read from its start
+ */
+public class FollowInputStream extends InputStream {
+
+    //longest a read waits before checking the file again. the file system watcher usually wakes it up sooner,
+    //so this bounds how long an appended line can take to be read
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private Path path;
+
+    private FileChannel channel;
+
+    //identifies the file being read, so a rotated file can be told apart from the one that replaced it
+    private Object fileKey;
+
+    private long position;
+
+    //run once whenever the reader catches up with the end of the file
+    private Runnable onIdle;
+
+    //watches the files directory for changes. null where the file system can not be watched, in which case the
+    //file is only polled
+    private WatchService watcher;
+
+    public FollowInputStream(Path file, Runnable idle) throws IOException {
+        path = file;
+        onIdle = idle;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        position = 0;
+        try{
+            watcher = FileSystems.getDefault().newWatchService();
+            path.toAbsolutePath().getParent().register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        catch(IOException | UnsupportedOperationException e){
+            watcher = null;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if(len == 0){
+            return 0;
+        }
+        boolean idle = false;
+        while(true){
+            int read = channel.read(ByteBuffer.wrap(b, off, len));
+            if(read > 0){
+                position += read;
+                return read;
+            }
+            if(reopenIfReplaced()){
+                continue;
+            }
+            if(!idle){
+                idle = true;
+                onIdle.run();
+            }
+            awaitChange();
+        }
+    }
+
+    /**
+     * called once everything in the open file has been read
+     * @return true if the file was truncated or rotated, in which case there may be more to read straight away
+     */
+    private boolean reopenIfReplaced() throws IOException {
+        BasicFileAttributes attributes;
+        try{
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        }
+        catch(IOException e){
+            //rotated away and not recreated yet
+            return false;
+        }
+        if(attributes.fileKey() != null && !attributes.fileKey().equals(fileKey)){
+            channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            fileKey = attributes.fileKey();
+            position = 0;
+            return true;
+        }
+        if(attributes.size() < position){
+            channel.position(0);
+            position = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private void awaitChange() throws IOException {
+        try{
+            if(watcher == null){
+                Thread.sleep(POLL_INTERVAL_MS);
+                return;
+            }
+            WatchKey key = watcher.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            if(key != null){
+                key.pollEvents();
+                key.reset();
+            }
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while following " + path);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if(watcher != null){
+            watcher.close();
+        }
+    }
+}
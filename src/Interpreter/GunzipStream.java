@@ -0,0 +1,144 @@
+package Interpreter;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * decompresses gzip input on a background thread. the producer thread inflates the compressed stream into chunks
+ * and hands them over through a bounded queue, so decompression runs alongside the interpreter instead of on
+ * its thread. gzip input is recognized by its magic bytes, whatever the file is called
+ */
+public class GunzipStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    //most inflated chunks waiting to be read. the producer blocks once this many are queued
+    private static final int QUEUE_CHUNKS = 8;
+
+    //queued after the last chunk
+    private static final byte[] END = new byte[0];
+
+    private InputStream compressed;
+
+    private ArrayBlockingQueue<byte[]> chunks;
+
+    //the chunk being read and how far into it the reader is
+    private byte[] chunk;
+    private int offset;
+
+    private boolean finished;
+
+    //the error the producer stopped on, thrown to the reader once it has read everything before it
+    private volatile IOException failure;
+
+    private Thread producer;
+
+    private GunzipStream(InputStream in){
+        compressed = in;
+        chunks = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        producer = new Thread(this::inflate, "awk-gunzip");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * @param in the raw input
+     * @return a stream of the decompressed input if it starts with the gzip magic bytes, otherwise a stream of the
+     * input as it is
+     */
+    public static InputStream open(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, CHUNK_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if(first == 0x1f && second == 0x8b){
+            return new GunzipStream(buffered);
+        }
+        return buffered;
+    }
+
+    /**
+     * @return true if the file starts with the gzip magic bytes
+     */
+    public static boolean isGzip(Path path) throws IOException {
+        try(InputStream in = Files.newInputStream(path)){
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    /**
+     * body of the producer thread
+     */
+    private void inflate(){
+        try{
+            try(GZIPInputStream gunzip = new GZIPInputStream(compressed, CHUNK_SIZE)){
+                while(true){
+                    byte[] buffer = new byte[CHUNK_SIZE];
+                    int read = gunzip.read(buffer);
+                    if(read == -1){
+                        break;
+                    }
+                    chunks.put(read == buffer.length ? buffer : Arrays.copyOf(buffer, read));
+                }
+            }
+            catch(IOException e){
+                failure = e;
+            }
+            chunks.put(END);
+        }
+        catch(InterruptedException e){
+            //the stream was closed before it was read to the end
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if(len == 0){
+            return 0;
+        }
+        if(chunk == null || offset == chunk.length){
+            if(finished){
+                return -1;
+            }
+            try{
+                chunk = chunks.take();
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for decompressed input");
+            }
+            offset = 0;
+            if(chunk == END){
+                finished = true;
+                if(failure != null){
+                    throw failure;
+                }
+                return -1;
+            }
+        }
+        int count = Math.min(len, chunk.length - offset);
+        System.arraycopy(chunk, offset, b, off, count);
+        offset += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        producer.interrupt();
+        compressed.close();
+    }
+}
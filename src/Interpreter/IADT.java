@@ -1,16 +1,170 @@
 package Interpreter;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * an awk array. keys are strings, but while every key is a small non-negative integer written the usual way ("0",
+ * "1", "42", not "01" or "1.0") the elements are kept in an array indexed by the key, so a[i] in a loop never
+ * builds or hashes a string. the first key that does not fit, or that would leave the array mostly empty, moves
+ * everything into a StringTable for good
+ */
 public class IADT extends IDT {
 
-    private HashMap<String, IDT> indexes;
+    private static final int INITIAL_CAPACITY = 8;
 
-    public HashMap<String, IDT> getIndexes(){
-        return indexes;
+    //largest key kept in the dense array, so keys are never more than 9 digits
+    private static final int MAX_DENSE_KEY = 999_999_999;
+
+    //the element with key i is dense[i], or null if there is none. null once the array has moved to hashed
+    private IDT[] dense;
+
+    private StringTable hashed;
+
+    //elements in the dense array. the StringTable counts its own
+    private int size;
+
+    //turns the numbers the StringTable keeps for its elements into strings
+    private NumberFormatter formatter;
+
+    public IADT(NumberFormatter fmt){
+        dense = new IDT[INITIAL_CAPACITY];
+        size = 0;
+        formatter = fmt;
+    }
+
+    /**
+     * @return the element, which is created as it is referenced if the array does not have the key yet
+     */
+    public IDT getOrCreate(IDT key){
+        if(dense != null){
+            int index = denseIndex(key);
+            if(index != -1 && index < dense.length && dense[index] != null){
+                return dense[index];
+            }
+            IDT value = new IDT("0");
+            if(putDense(index, value)){
+                return value;
+            }
+            moveToHashed();
+        }
+        return hashed.getOrCreate(key.getData());
+    }
+
+    public boolean containsKey(IDT key){
+        if(dense != null){
+            int index = denseIndex(key);
+            return index != -1 && index < dense.length && dense[index] != null;
+        }
+        return hashed.containsKey(key.getData());
+    }
+
+    public void put(IDT key, IDT value){
+        if(dense != null){
+            if(putDense(denseIndex(key), value)){
+                return;
+            }
+            moveToHashed();
+        }
+        hashed.put(key.getData(), value);
+    }
+
+    public void remove(String key){
+        if(dense != null){
+            int index = denseIndex(key);
+            if(index != -1 && index < dense.length && dense[index] != null){
+                dense[index] = null;
+                size--;
+            }
+        }
+        else{
+            hashed.remove(key);
+        }
+    }
+
+    public void clear(){
+        dense = new IDT[INITIAL_CAPACITY];
+        hashed = null;
+        size = 0;
+    }
+
+    /**
+     * @return a copy of the keys, so the array can be changed while they are looped over
+     */
+    public List<String> keys(){
+        ArrayList<String> keys = new ArrayList<>(dense != null ? size : hashed.size());
+        if(dense != null){
+            for(int i = 0; i < dense.length; i++){
+                if(dense[i] != null){
+                    keys.add(Integer.toString(i));
+                }
+            }
+        }
+        else{
+            hashed.addKeysTo(keys);
+        }
+        return keys;
+    }
+
+    /**
+     * @return false if the key can not go in the dense array
+     */
+    private boolean putDense(int index, IDT value){
+        if(index == -1){
+            return false;
+        }
+        if(index >= dense.length){
+            //growing is only worth it while at least about half of the array would be used
+            if(index > 2 * size + INITIAL_CAPACITY){
+                return false;
+            }
+            dense = Arrays.copyOf(dense, Math.max(index + 1, dense.length * 2));
+        }
+        if(dense[index] == null){
+            size++;
+        }
+        dense[index] = value;
+        return true;
+    }
+
+    private void moveToHashed(){
+        hashed = new StringTable(size * 2, formatter);
+        for(int i = 0; i < dense.length; i++){
+            if(dense[i] != null){
+                hashed.put(Integer.toString(i), dense[i]);
+            }
+        }
+        dense = null;
+    }
+
+    /**
+     * @return the index the key has in the dense array, or -1 if it is not a small non-negative integer
+     */
+    private static int denseIndex(IDT key){
+        //a whole number is written as its digits, so its index is known without making its string
+        if(key.isNumberValue()){
+            double number = key.getNumber();
+            if(number == Math.rint(number)){
+                return number >= 0 && number <= MAX_DENSE_KEY ? (int) number : -1;
+            }
+        }
+        return denseIndex(key.getData());
     }
 
-    public IADT(){
-        indexes = new HashMap<>();
+    private static int denseIndex(String key){
+        int length = key.length();
+        if(length == 0 || length > 9 || (length > 1 && key.charAt(0) == '0')){
+            return -1;
+        }
+        int index = 0;
+        for(int i = 0; i < length; i++){
+            char c = key.charAt(i);
+            if(c < '0' || c > '9'){
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
     }
 }
@@ -1,8 +1,32 @@
 package Interpreter;
+
+/**
+ * a single awk value. a value can be known as a string, as a number or both. whichever one is missing is worked
+ * out the first time it is asked for and then kept, so a value built by arithmetic is never formatted unless it
+ * is used as a string, and a string is parsed at most once no matter how often it is used as a number
+ */
 public class IDT {
 
+    //the string form. null while only the number is known
     private String data;
 
+    private double number;
+
+    //true once number holds the value, or the string has been found not to be a number
+    private boolean hasNumber;
+
+    //true if the value is a number
+    private boolean numeric;
+
+    //true if the value was set as a number, so print formats it with OFMT rather than CONVFMT
+    private boolean fromNumber;
+
+    //formats a number value as a string. null for numbers that are always formatted with the default formats
+    private NumberFormatter formatter;
+
+    //the formatter's generation when data was made from the number, so data is made again once CONVFMT changes
+    private int formatGeneration;
+
     public IDT(String dat){
         data = dat;
     }
@@ -11,23 +35,147 @@ public class IDT {
         data = "";
     }
 
+    public IDT(double num){
+        setNumber(num);
+    }
+
+    public IDT(double num, NumberFormatter fmt){
+        setNumber(num, fmt);
+    }
+
     public String getData(){
+        if(formatter == null){
+            if(data == null){
+                data = NumberFormatter.format(number, NumberFormatter.DEFAULT_FORMAT);
+            }
+        }
+        else if(data == null || formatGeneration != formatter.getGeneration()){
+            data = formatter.convert(number);
+            formatGeneration = formatter.getGeneration();
+        }
         return data;
     }
 
     public void setData(String dat){
-        try{
-            float newDataFloat = Float.parseFloat(dat);
-            if(newDataFloat == (int) newDataFloat){
-                data = String.valueOf((int) newDataFloat);
-            }
-            else{
-                data = dat;
-            }
+        number = NumberScanner.parse(dat);
+        numeric = !Double.isNaN(number);
+        if(numeric && number == Math.rint(number) && Math.abs(number) < 0x1p63){
+            data = Long.toString((long) number);
         }
-        catch (NumberFormatException e) {
+        else{
             data = dat;
         }
+        hasNumber = true;
+        fromNumber = false;
+        formatter = null;
+    }
+
+    /**
+     * @return the value as print writes it. numbers are formatted with OFMT, strings are written as they are
+     */
+    public String getOutputData(){
+        if(fromNumber){
+            return formatter == null ? NumberFormatter.format(number, NumberFormatter.DEFAULT_FORMAT)
+                    : formatter.output(number);
+        }
+        return getData();
+    }
+
+    /**
+     * @return true if the value is a number or a string that looks numeric
+     */
+    public boolean isNumeric(){
+        if(!hasNumber){
+            number = NumberScanner.parse(getData());
+            numeric = !Double.isNaN(number);
+            hasNumber = true;
+        }
+        return numeric;
     }
 
+    /**
+     * @return the value as a condition. numbers are true when they are not 0, strings when they are not empty
+     */
+    public boolean isTrue(){
+        if(isNumeric()){
+            return getNumber() != 0;
+        }
+        return !getData().isEmpty();
+    }
+
+    /**
+     * @return the value as a number
+     * @throws NumberFormatException if the value is not a number. callers that can handle strings should check
+     * isNumeric first
+     */
+    public double getNumber(){
+        if(!isNumeric()){
+            throw new NumberFormatException("not a number: " + getData());
+        }
+        return number;
+    }
+
+    /**
+     * @return the value as arithmetic uses it. a string that does not look numeric counts as its numeric prefix,
+     * so "3abc" is 3 and "abc" or "" is 0
+     */
+    public double getNumericValue(){
+        if(isNumeric()){
+            return getNumber();
+        }
+        return NumberScanner.parsePrefix(getData());
+    }
+
+    /**
+     * sets the value to a whole number, or any number that CONVFMT and OFMT never apply to
+     */
+    public void setNumber(double num){
+        setNumber(num, null);
+    }
+
+    /**
+     * sets the value to a number. its string form is not made until something asks for it
+     * @param fmt the formatter of the interpreter the value belongs to
+     */
+    public void setNumber(double num, NumberFormatter fmt){
+        data = null;
+        number = num;
+        numeric = true;
+        hasNumber = true;
+        fromNumber = true;
+        formatter = fmt;
+    }
+
+    /**
+     * @return true if the value was set as a number, so its string form is whatever NumberFormatter makes of it
+     */
+    boolean isNumberValue(){
+        return fromNumber;
+    }
+
+    /**
+     * @return the formatter a number value is turned into a string with, or null for the default formats
+     */
+    NumberFormatter getFormatter(){
+        return formatter;
+    }
+
+    /**
+     * copies another value into this one, keeping whatever forms of it are already known
+     */
+    public void assign(IDT other){
+        if(other.isNumberValue()){
+            setNumber(other.getNumber(), other.getFormatter());
+        }
+        else{
+            setData(other.getData());
+        }
+    }
+
+    /**
+     * forgets the cached number, for cells whose string changes without going through setData
+     */
+    protected void clearNumber(){
+        hasNumber = false;
+    }
 }
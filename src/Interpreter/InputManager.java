@@ -0,0 +1,115 @@
+package Interpreter;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.function.Function;
+
+/**
+ * the handle table behind getline < file and command | getline. every file or command gets one streaming
+ * record cursor, which stays open so later getline calls carry on where the last one stopped
+ */
+public class InputManager {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    //opens a cursor over the records of a single file
+    private Function<String, RecordCursor> opener;
+
+    //flushed before a command is started, so output reaches it in order
+    private OutputManager outputs;
+
+    private HashMap<String, RecordCursor> files;
+
+    private HashMap<String, RecordCursor> commands;
+
+    private HashMap<String, Process> processes;
+
+    //true in csv mode, where commands output is read as csv records
+    private boolean csv;
+
+    public InputManager(Function<String, RecordCursor> open, OutputManager out, boolean csvRecords){
+        opener = open;
+        outputs = out;
+        csv = csvRecords;
+        files = new HashMap<>();
+        commands = new HashMap<>();
+        processes = new HashMap<>();
+    }
+
+    /**
+     * @param name the file to read from. the file is opened the first time it is read
+     * @return a cursor over the files records, or null if the file could not be opened
+     */
+    public RecordCursor getFile(String name){
+        RecordCursor file = files.get(name);
+        if(file == null){
+            try{
+                file = opener.apply(name.equals("/dev/stdin") ? LineManager.STDIN_PATH : name);
+            }
+            catch(RuntimeException e){
+                return null;
+            }
+            files.put(name, file);
+        }
+        return file;
+    }
+
+    /**
+     * @param command the shell command to read from. the command is started the first time it is read
+     * @return a cursor over the records the command writes to stdout, or null if it could not be started
+     */
+    public RecordCursor getCommand(String command){
+        RecordCursor output = commands.get(command);
+        if(output == null){
+            outputs.flushAll();
+            Process process;
+            try{
+                process = new ProcessBuilder("sh", "-c", command)
+                        .redirectInput(ProcessBuilder.Redirect.INHERIT)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+            }
+            catch(IOException e){
+                return null;
+            }
+            output = new StreamRecordReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8), BUFFER_SIZE, csv);
+            processes.put(command, process);
+            commands.put(command, output);
+        }
+        return output;
+    }
+
+    /**
+     * closes a file or command that getline was reading from
+     * @param name the file name or command
+     * @return the commands exit status for a command, 0 for a file and -1 if nothing by that name was open
+     */
+    public int close(String name){
+        if(files.containsKey(name)){
+            files.remove(name).close();
+            return 0;
+        }
+        if(commands.containsKey(name)){
+            commands.remove(name).close();
+            try{
+                return processes.remove(name).waitFor();
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("interrupted while waiting for input command " + name + " to finish");
+            }
+        }
+        return -1;
+    }
+
+    public void closeAll(){
+        for(String name : new HashSet<>(files.keySet())){
+            close(name);
+        }
+        for(String command : new HashSet<>(commands.keySet())){
+            close(command);
+        }
+    }
+}
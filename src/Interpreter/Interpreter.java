@@ -1,12 +1,19 @@
 package Interpreter;
 
 
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,10 +29,14 @@ public class Interpreter {
 
     FNR - File Number of Records: record number within the current file (resets to 1 when a new file is started)
 
-    OFMT - Output Format for numbers
+    OFMT - Output Format for numbers that are printed
+
+    CONVFMT - Conversion Format for numbers that are turned into strings, as by concatenation or array indexing
 
     ORS - Output record seperator
 
+    RS - Record seperator: a single character, "" for paragraph mode (records separated by blank lines) or a regex
+
     FILENAME - the current file being read
 
     NF - Number of fields (aka $ arguments)
@@ -33,29 +44,104 @@ public class Interpreter {
 
     private LineManager lmanager;
 
+    //$0, the fields and NF
+    private Record record;
+
     private HashMap<String, IDT> globals;
 
     private HashMap<String, FunctionNode> functiondefs;
 
     private ProgramNode program;
 
+    //every file and command print and printf can be redirected to
+    private OutputManager outputs;
+
+    //where print and printf are currently writing. stdout unless the call being run is redirected
+    private OutputBuffer output;
+
+    //every file and command getline can read from
+    private InputManager inputs;
+
+    //where getline is currently reading from. NONE for the main input, otherwise the file or command in getlineTarget
+    private FunctionCallNode.redirectType getlineRedirect = FunctionCallNode.redirectType.NONE;
+
+    private String getlineTarget;
+
+    //true in json mode, where $"key" looks a key up in the record
+    private boolean jsonRecords;
+
+    //whether each constant compared against a field is a number, worked out the first time it is compared
+    private IdentityHashMap<ConstantNode, Boolean> numericConstants;
+
+    //splits strings for the split builtin, separately from the record's splitter
+    private FieldSplitter arraySplitter;
+
+    //CONVFMT and OFMT, and the numbers arithmetic makes are turned into strings with them
+    private NumberFormatter numberFormat;
+
+    //size of the char buffer used when streaming records from the records file or stdin
+    private static final int RECORD_BUFFER_SIZE = 1 << 16;
+
 
     public Interpreter(ProgramNode program, Optional<String> filepath) throws IOException {
+        this(program, filepath, new InterpreterOptions());
+    }
+
+    public Interpreter(ProgramNode program, Optional<String> filepath, InterpreterOptions options) throws IOException {
+        this(program, filepath.map(path -> new LinkedList<>(List.of(path))).orElseGet(LinkedList::new), options);
+    }
+
+    public Interpreter(ProgramNode program, LinkedList<String> filepaths, InterpreterOptions options) throws IOException {
         globals = new HashMap<>();
         functiondefs = new HashMap<>();
+        numericConstants = new IdentityHashMap<>();
+        arraySplitter = new FieldSplitter();
+        numberFormat = new NumberFormatter();
+        jsonRecords = options.json;
         this.program = program;
-
-        if (filepath.isPresent()) {
-            lmanager = new LineManager(Files.readAllLines(Paths.get(filepath.get())));
-            globals.put("FILENAME", new IDT(filepath.get()));
-        } else {
-            lmanager = new LineManager(new LinkedList<>());
-            globals.put("FILENAME", new IDT());
-        }
+        outputs = new OutputManager(OutputManager.stdoutIsTerminal(), options.asyncOutput);
+        output = outputs.getStdout();
+
+        //with no records files, records are streamed from stdin so the interpreter can sit in a pipeline
+        LinkedList<String> recordFiles = filepaths.isEmpty() ? new LinkedList<>(List.of(LineManager.STDIN_PATH)) : filepaths;
+        //with --follow the last records file is followed as it grows. output is flushed whenever the input goes
+        //quiet, so records show up promptly even when output is block buffered. only the main input follows it,
+        //getline reads the file as it is and stops at its end
+        String followed = options.follow ? recordFiles.getLast() : null;
+        Runnable flushWhenIdle = outputs::flushAll;
+        Function<String, RecordCursor> opener = path -> {
+            try{
+                return openRecords(path, options, path.equals(followed) ? flushWhenIdle : null);
+            }
+            catch(IOException e){
+                throw new RuntimeException("failed to open records file " + path + "\n" + e);
+            }
+        };
+        Function<String, RecordCursor> getlineOpener = path -> {
+            try{
+                return openRecords(path, options, null);
+            }
+            catch(IOException e){
+                throw new RuntimeException("failed to open records file " + path + "\n" + e);
+            }
+        };
+        //files are opened in order as the previous one runs out. nothing is read until the first record is requested
+        record = new Record(globals, numberFormat);
+        record.setFieldLimit(FieldProjection.highestField(program));
+        record.setCsv(options.csv);
+        lmanager = new LineManager(recordFiles, opener, record, followed);
+        inputs = new InputManager(getlineOpener, outputs, options.csv);
+        globals.put("FILENAME", new IDT(recordFiles.get(0).equals(LineManager.STDIN_PATH) ? "" : recordFiles.get(0)));
         globals.put("FS", new IDT(" "));
-        globals.put("OFMT", new IDT("%.6g"));
+        //fixed width fields. when not empty, records are split by these widths instead of by FS
+        globals.put("FIELDWIDTHS", new IDT(""));
+        globals.put("CONVFMT", numberFormat.getConvfmtCell());
+        globals.put("OFMT", numberFormat.getOfmtCell());
         globals.put("OFS", new IDT(" "));
         globals.put("ORS", new IDT("\n"));
+        globals.put("RS", new IDT("\n"));
+        globals.put("$0", record.getRecordCell());
+        globals.put("NF", record.getCountCell());
 
         for (int i = 0; i < program.getFunctions().size(); i++) {
             functiondefs.put(program.getFunctions().get(i).getName(), program.getFunctions().get(i));
@@ -64,19 +150,20 @@ public class Interpreter {
         functiondefs.put("print", new BuiltInFunctionDefinitionNode(params -> {
             if(params.isEmpty()){
                 if(globals.containsKey("$0")) {
-                    System.out.print(globals.get("$0").getData());
+                    output.write(globals.get("$0").getData());
                 }
+                output.write(globals.get("ORS").getData());
                 return null;
             }
 
-            String[] printvals = new String[params.size()];
+            String ofs = globals.get("OFS").getData();
             for(int i = 0; i < params.size(); i++){
-                printvals[i] = params.get(String.valueOf(i)).getData();
-            }
-            for(String current : printvals){
-                System.out.print(current);
+                if(i > 0){
+                    output.write(ofs);
+                }
+                output.write(params.get(String.valueOf(i)).getOutputData());
             }
-            System.out.print("\n");
+            output.write(globals.get("ORS").getData());
             return null;
         }, true));
 
@@ -91,25 +178,82 @@ public class Interpreter {
                 for(int i = 1; i < params.size(); i++){
                     printvals[i - 1] = params.get(String.valueOf(i)).getData();
                 }
-                System.out.printf(params.get("0").getData(), printvals);
+                output.write(String.format(params.get("0").getData(), (Object[]) printvals));
             }
             else{
-                System.out.printf(params.get("0").getData());
+                output.write(String.format(params.get("0").getData()));
             }
             return null;
         }, true));
 
 
+        functiondefs.put("close", new BuiltInFunctionDefinitionNode(params -> {
+            if(params.size() != 1){
+                throw new RuntimeException("incorrect parameters passed to awk function close. Expected 1, found " + params.size());
+            }
+            //the same name can be open for both output and getline
+            int outputStatus = outputs.close(params.get("0").getData());
+            int inputStatus = inputs.close(params.get("0").getData());
+            return String.valueOf(outputStatus != -1 ? outputStatus : inputStatus);
+        }, false));
+
+
+        functiondefs.put("fflush", new BuiltInFunctionDefinitionNode(params -> {
+            if(params.size() > 1){
+                throw new RuntimeException("incorrect parameters passed to awk function fflush. Expected 0|1, found " + params.size());
+            }
+            //with no file or command given, everything is flushed
+            if(params.isEmpty()){
+                outputs.flushAll();
+                return "0";
+            }
+            return String.valueOf(outputs.flush(params.get("0").getData()));
+        }, false));
+
+
         functiondefs.put("getline", new BuiltInFunctionDefinitionNode(params -> {
-            if(!params.isEmpty()){
-                throw new RuntimeException("incorrect parameters passed to awk function getline. Expected 0, found " + params.size());
+            if(params.size() > 1){
+                throw new RuntimeException("incorrect parameters passed to awk function getline. Expected 0|1, found " + params.size());
             }
+            //the variable the record is read into. without one, the record is assigned to $0 and split into fields
+            IDT target = params.isEmpty() ? null : params.get("0");
 
-            if(lmanager.SplitAndAssign(globals)){
+            if(getlineRedirect == FunctionCallNode.redirectType.NONE){
+                String line = lmanager.nextRecord(globals);
+                if(line == null){
+                    return "0";
+                }
+                if(target != null){
+                    target.setData(line);
+                }
+                else{
+                    record.set(line);
+                }
                 return "1";
             }
-            return "0";
-        }, false));
+
+            RecordCursor source = getlineRedirect == FunctionCallNode.redirectType.INPUT_FILE
+                    ? inputs.getFile(getlineTarget) : inputs.getCommand(getlineTarget);
+            if(source == null){
+                return "-1";
+            }
+            source.setSeparator(globals.get("RS").getData());
+            if(!source.hasNext()){
+                return "0";
+            }
+            source.advance();
+            if(target != null){
+                target.setData(source.current());
+            }
+            else{
+                record.set(source.current());
+            }
+            //records read from a command count towards NR, records read from a file do not
+            if(getlineRedirect == FunctionCallNode.redirectType.INPUT_PIPE){
+                LineManager.incrementCount("NR", globals);
+            }
+            return "1";
+        }, true));
 
 
         functiondefs.put("next", new BuiltInFunctionDefinitionNode(params -> {
@@ -164,6 +308,19 @@ public class Interpreter {
         }, false));
 
 
+        functiondefs.put("jget", new BuiltInFunctionDefinitionNode(params -> {
+            if(params.size() != 2){
+                throw new RuntimeException("incorrect parameters passed to awk jget function. Expected 2, found " + params.size());
+            }
+            //lookups into the current record are cached until the next record
+            if(params.get("0") == record.getRecordCell()){
+                return record.getJsonValue(params.get("1").getData());
+            }
+            String value = JsonScanner.get(params.get("0").getData(), params.get("1").getData());
+            return value == null ? "" : value;
+        }, false));
+
+
         functiondefs.put("length", new BuiltInFunctionDefinitionNode(params -> {
             if (params.size() != 1) {
                 throw new RuntimeException("parameters mismatch in awk length function call. Expected 1, found " + params.size());
@@ -200,12 +357,17 @@ public class Interpreter {
                 throw new RuntimeException("array not present at parameter 2 in awk split call");
             }
 
-            String fs = params.containsKey("2") ? params.get("2").getData() : " ";
-            String[] splitString = params.get("0").getData().split(fs);
-            for (int i = 0; i < splitString.length; i++) {
-                ((IADT) params.get("1")).getIndexes().get(String.valueOf(i + 1)).setData(splitString[i]);
+            //with no separator given, the string is split the way records are
+            String fs = params.containsKey("2") ? params.get("2").getData() : globals.get("FS").getData();
+            String str = params.get("0").getData();
+            arraySplitter.setSeparator(fs, false, "");
+            int count = arraySplitter.split(str, FieldProjection.ALL_FIELDS);
+            IADT array = (IADT) params.get("1");
+            array.clear();
+            for (int i = 0; i < count; i++) {
+                array.put(new IDT(i + 1), new IDT(str.substring(arraySplitter.getStart(i), arraySplitter.getEnd(i))));
             }
-            return null;
+            return String.valueOf(count);
         }, false));
 
 //        functiondefs.put("sprintf", new BuiltInFunctionDefinitionNode(params -> {}, false));
@@ -264,21 +426,93 @@ public class Interpreter {
             return params.get("0").getData().toUpperCase();
         }, false));
     }
-    public void InterpretProgram(){
-        for(BlockNode block : program.getStartBlocks()){
-            interpretBlock(block);
+
+    /**
+     * @return true if the constant is a number, in which case comparing it with a field is a numeric comparison
+     */
+    private boolean isNumericConstant(ConstantNode constant){
+        Boolean numeric = numericConstants.get(constant);
+        if(numeric == null){
+            numeric = NumberScanner.looksNumeric(constant.getValue());
+            numericConstants.put(constant, numeric);
+        }
+        return numeric;
+    }
+
+    /**
+     * opens a cursor over the records in a file
+     * @param path path to the records file, or - for stdin
+     * @param options the options the interpreter was started with
+     * @param onIdle null unless the file is being followed, in which case it is run whenever the reader catches up
+     *               with the end of the file
+     * @return a memory mapped cursor if --mmap was passed and the file is not compressed, otherwise a buffered
+     * streaming cursor
+     */
+    private static RecordCursor openRecords(String path, InterpreterOptions options, Runnable onIdle) throws IOException {
+        //gzip input is decompressed on the fly, on a thread of its own
+        if(path.equals(LineManager.STDIN_PATH)){
+            return new StreamRecordReader(new InputStreamReader(
+                    GunzipStream.open(new FileInputStream(FileDescriptor.in)), StandardCharsets.UTF_8), RECORD_BUFFER_SIZE, options.csv);
         }
+        //a followed file is streamed as it grows, it has no end to map or decompress up to
+        if(onIdle != null){
+            return new StreamRecordReader(new InputStreamReader(
+                    new FollowInputStream(Paths.get(path), onIdle), StandardCharsets.UTF_8), RECORD_BUFFER_SIZE, options.csv);
+        }
+        //a compressed file can not be scanned in place, so it is streamed even with --mmap
+        if(options.memoryMapped && !GunzipStream.isGzip(Paths.get(path))){
+            return new MappedRecordReader(Paths.get(path), options.csv);
+        }
+        //records are streamed one at a time rather than read in up front, so memory use does not grow with the file
+        return new StreamRecordReader(new InputStreamReader(
+                GunzipStream.open(Files.newInputStream(Paths.get(path))), StandardCharsets.UTF_8), RECORD_BUFFER_SIZE, options.csv);
+    }
 
-        while(!lmanager.getLineList().isEmpty()){
-            lmanager.SplitAndAssign(globals);
+    public void InterpretProgram(){
+        try{
+            for(BlockNode block : program.getStartBlocks()){
+                interpretBlock(block);
+            }
+
+            //a program made up of only BEGIN blocks never reads its input
+            if(!program.getBlocks().isEmpty() || !program.getEndBlocks().isEmpty()){
+                while(lmanager.SplitAndAssign(globals)){
+                    for(BlockNode block : program.getBlocks()){
+                        interpretBlock(block);
+                    }
+                }
+            }
+            lmanager.close();
 
-            for(BlockNode block : program.getBlocks()){
+            for(BlockNode block : program.getEndBlocks()){
                 interpretBlock(block);
             }
+            outputs.closeAll();
         }
+        catch(BrokenPipeException e){
+            //whoever was reading the output went away, as head does. awk is stopped by SIGPIPE here, so stop quietly
+            closeOutputsAfter(e);
+        }
+        catch(RuntimeException e){
+            //anything printed before an error is still written out
+            closeOutputsAfter(e);
+            throw e;
+        }
+        finally{
+            inputs.closeAll();
+        }
+    }
 
-        for(BlockNode block : program.getEndBlocks()){
-            interpretBlock(block);
+    /**
+     * closes every output once the program has been stopped by an error. a failure while closing is added to the
+     * error instead of replacing it
+     */
+    private void closeOutputsAfter(RuntimeException error){
+        try{
+            outputs.closeAll();
+        }
+        catch(RuntimeException e){
+            error.addSuppressed(e);
         }
     }
 
@@ -286,16 +520,7 @@ public class Interpreter {
         boolean blockCond = false;
 
         if(block.getCondition().isPresent()){
-            IDT condIDT = getIDT(block.getCondition().get(), Optional.empty());
-            try{
-                float condFloat = Float.parseFloat(condIDT.getData());
-                if(condFloat != 0){
-                    blockCond = true;
-                }
-            }
-            catch (NumberFormatException e){
-                blockCond = !condIDT.getData().isEmpty();
-            }
+            blockCond = getIDT(block.getCondition().get(), Optional.empty()).isTrue();
         }
 
         if(!block.getCondition().isPresent() || blockCond){
@@ -310,7 +535,9 @@ public class Interpreter {
     }
     private ReturnType processStatement(StatementNode statement, Optional<HashMap<String, IDT>> locals){
         if(statement instanceof  AssignmentNode){
-            return new ReturnType(ReturnType.returnType.NORMAL, getIDT(statement, locals).getData());
+            //the value is not needed, so a number assigned here is never formatted
+            getIDT(statement, locals);
+            return new ReturnType(ReturnType.returnType.NORMAL);
         }
         else if(statement instanceof BreakNode){
             return new ReturnType(ReturnType.returnType.BREAK);
@@ -347,7 +574,8 @@ public class Interpreter {
         }
         else{
            //assuming this is some increment or in place math expression with no general effect on the program
-           return new ReturnType(ReturnType.returnType.NORMAL, getIDT(statement, locals).getData());
+           getIDT(statement, locals);
+           return new ReturnType(ReturnType.returnType.NORMAL);
         }
     }
 
@@ -389,14 +617,12 @@ public class Interpreter {
         }
 
         if(node.getIndexes().isPresent()){
-            arr.getIndexes().forEach((key, val) -> {
-                if(node.getIndexes().get().contains(key)){
-                    arr.getIndexes().remove(key);
-                }
-            });
+            for(Object index : node.getIndexes().get()){
+                arr.remove(getIDT((Node) index, locals).getData());
+            }
         }
         else{
-            arr.getIndexes().forEach((key, val) -> arr.getIndexes().remove(key));
+            arr.clear();
         }
         return new ReturnType(ReturnType.returnType.NORMAL);
     }
@@ -408,7 +634,6 @@ public class Interpreter {
             ret = interpretListOfStatements(node.getStatements().getStatements(), locals);
 
             IDT condition = getIDT(node.getCondition().get(), locals);
-            float cond;
             if(ret.getReturnCause() == ReturnType.returnType.BREAK){
                 break;
             }
@@ -416,15 +641,7 @@ public class Interpreter {
                 return ret;
             }
 
-            try{
-                cond = Float.parseFloat(condition.getData());
-                if(cond == 0){
-                    stillTrue = false;
-                }
-            }
-            catch (NumberFormatException e){
-                stillTrue = !condition.getData().isEmpty();
-            }
+            stillTrue = condition.isTrue();
         }while(stillTrue);
         return ret;
     }
@@ -433,17 +650,7 @@ public class Interpreter {
         ReturnType ret = new ReturnType(ReturnType.returnType.NORMAL);
         //initialization assignment
         getIDT(node.getInitialization(), locals);
-        IDT cond = getIDT(node.getCondition(), locals);
-        boolean stillTrue = false;
-        float condfloat;
-        try{
-            condfloat = Float.parseFloat(cond.getData());
-            if(condfloat != 0){
-                stillTrue = true;
-            }
-        } catch (NumberFormatException e) {
-            stillTrue = !cond.getData().isEmpty();
-        }
+        boolean stillTrue = getIDT(node.getCondition(), locals).isTrue();
 
         while(stillTrue){
             ret = interpretListOfStatements(node.getStatements().getStatements(), locals);
@@ -455,16 +662,7 @@ public class Interpreter {
                 return ret;
             }
             getIDT(node.getOperation(), locals);
-            cond = getIDT(node.getCondition(), locals);
-            try{
-                condfloat = Float.parseFloat(cond.getData());
-                if(condfloat == 0){
-                    stillTrue = false;
-                }
-            }
-            catch (NumberFormatException e){
-                stillTrue = !cond.getData().isEmpty();
-            }
+            stillTrue = getIDT(node.getCondition(), locals).isTrue();
         }
         return ret;
     }
@@ -502,12 +700,8 @@ public class Interpreter {
             if(leftVar instanceof IADT){
                 throw new RuntimeException("left var in for each loop is an array");
             }
-            LinkedList<String> keySet = new LinkedList<>();
-            array.getIndexes().forEach((key, item) ->{
-                keySet.add(key);
-            });
             ReturnType ret = new ReturnType(ReturnType.returnType.NORMAL);
-            for(String key: keySet){
+            for(String key: array.keys()){
                 leftVar.setData(key);
 
                 ret = interpretListOfStatements(node.getStatements().getStatements(), locals);
@@ -529,18 +723,7 @@ public class Interpreter {
         do{
             boolean condTrue = false;
             if(node.getCondition().isPresent()){
-                IDT cond = getIDT(node.getCondition().get(), locals);
-                try {
-                    float condFloat = Float.parseFloat(cond.getData());
-                    if(condFloat != 0){
-                        condTrue = true;
-                    }
-                }
-                catch(NumberFormatException e){
-                    if(!cond.getData().isEmpty()){
-                        condTrue = true;
-                    }
-                }
+                condTrue = getIDT(node.getCondition().get(), locals).isTrue();
             }
             else{
                 condTrue = true;
@@ -565,16 +748,7 @@ public class Interpreter {
         boolean stillTrue = true;
         ReturnType ret = new ReturnType(ReturnType.returnType.NORMAL);
         while(stillTrue){
-            IDT condition = getIDT(node.getCondition().get(), locals);
-            try{
-                float condFloat = Float.parseFloat(condition.getData());
-                if(condFloat == 0){
-                    stillTrue = false;
-                }
-            }
-            catch (NumberFormatException e){
-                stillTrue = !condition.getData().isEmpty();
-            }
+            stillTrue = getIDT(node.getCondition().get(), locals).isTrue();
 
             if(!stillTrue){
                 break;
@@ -607,12 +781,12 @@ public class Interpreter {
             IDT val = getIDT(assign.getRightSide().get(), locals);
             if (assign.getLeftside() instanceof VariableReferenceNode) {
                 IDT target = getIDT(assign.getLeftside(), locals);
-                target.setData(val.getData());
+                target.assign(val);
                 return val;
             } else if (assign.getLeftside() instanceof OperationNode
                     && ((OperationNode) assign.getLeftside()).getOpType() == OperationNode.operationType.DOLLAR) {
                 IDT target = getIDT(assign.getLeftside(), locals);
-                target.setData(val.getData());
+                target.assign(val);
                 return val;
             } else {
                 throw new RuntimeException("left side of assignment must be a variable or field reference");
@@ -622,21 +796,21 @@ public class Interpreter {
             return new IDT(runFunctionCall((FunctionCallNode) current, locals));
         }
         else if(current instanceof ConstantNode){
-            return new IDT(((ConstantNode) current).getValue());
+            ConstantNode constant = (ConstantNode) current;
+            //a number literal is a number, so OFMT and CONVFMT apply to it like to any computed number
+            if(constant.isNumber()){
+                double number = NumberScanner.parse(constant.getValue());
+                if(!Double.isNaN(number)){
+                    return new IDT(number, numberFormat);
+                }
+            }
+            return new IDT(constant.getValue());
         }
         else if(current instanceof PatternNode){
             throw new RuntimeException("cannot interpret pattern");
         }
         else if(current instanceof TernaryNode){
-            IDT bool = getIDT(((TernaryNode) current).getCondition(), locals);
-            boolean terCond;
-            try{
-                terCond = Float.parseFloat(bool.getData()) != 0;
-            }
-            catch(NumberFormatException e){
-                terCond = !bool.getData().isEmpty();
-            }
-            if(terCond){
+            if(getIDT(((TernaryNode) current).getCondition(), locals).isTrue()){
                 return getIDT(((TernaryNode) current).getTruthExpression(), locals);
             }
             return getIDT(((TernaryNode) current).getFalseExpression(), locals);
@@ -646,7 +820,7 @@ public class Interpreter {
             if(locals.isPresent()){
                 if(!globals.containsKey(currentVar.getVariableName()) && !locals.get().containsKey(currentVar.getVariableName())){
                     if(currentVar.getArrayIndex().isPresent()){
-                        globals.put(currentVar.getVariableName(), new IADT());
+                        globals.put(currentVar.getVariableName(), new IADT(numberFormat));
                     }
                     else{
                         globals.put(currentVar.getVariableName(), new IDT("0"));
@@ -656,7 +830,7 @@ public class Interpreter {
             else{
                 if(!globals.containsKey(currentVar.getVariableName())){
                     if(currentVar.getArrayIndex().isPresent()){
-                        globals.put(currentVar.getVariableName(), new IADT());
+                        globals.put(currentVar.getVariableName(), new IADT(numberFormat));
                     }
                     else{
                         globals.put(currentVar.getVariableName(), new IDT("0"));
@@ -667,10 +841,7 @@ public class Interpreter {
             if(locals.isPresent() && locals.get().containsKey(currentVar.getVariableName())){
                 if(arrayInd != null){
                     if(locals.get().get(currentVar.getVariableName()) instanceof IADT){
-                        if(!((IADT) locals.get().get(currentVar.getVariableName())).getIndexes().containsKey(arrayInd.getData())){
-                            ((IADT) locals.get().get(currentVar.getVariableName())).getIndexes().put(arrayInd.getData(), new IDT("0"));
-                        }
-                        return ((IADT) locals.get().get(currentVar.getVariableName())).getIndexes().get(arrayInd.getData());
+                        return ((IADT) locals.get().get(currentVar.getVariableName())).getOrCreate(arrayInd);
                     }
                     throw new RuntimeException("attempting to reference variable " + currentVar.getVariableName() + " as an array");
                 }
@@ -679,10 +850,7 @@ public class Interpreter {
             else if(globals.containsKey(currentVar.getVariableName())){
                 if(arrayInd != null){
                     if(globals.get(currentVar.getVariableName()) instanceof IADT){
-                        if(!((IADT) globals.get(currentVar.getVariableName())).getIndexes().containsKey(arrayInd.getData())){
-                            ((IADT) globals.get(currentVar.getVariableName())).getIndexes().put(arrayInd.getData(), new IDT("0"));
-                        }
-                        return ((IADT) globals.get(currentVar.getVariableName())).getIndexes().get(arrayInd.getData());
+                        return ((IADT) globals.get(currentVar.getVariableName())).getOrCreate(arrayInd);
                     }
                     throw new RuntimeException("attempting to reference variable " + currentVar.getVariableName() + " as an array");
                 }
@@ -696,7 +864,7 @@ public class Interpreter {
             OperationNode currentOP = (OperationNode) current;
 
 
-            float leftFloat, rightFloat;
+            double leftFloat, rightFloat;
             if(currentOP.isMath()){
                 IDT left = getIDT(currentOP.getLeft(), locals);
                 IDT right;
@@ -706,63 +874,28 @@ public class Interpreter {
                 else{
                     throw new RuntimeException("right side not found in mathmatical operation");
                 }
-                try{
-                    leftFloat = Float.parseFloat(left.getData());
-                    rightFloat = Float.parseFloat(right.getData());
-                }
-                catch(NumberFormatException e){
-                    throw new RuntimeException("math operation failed. attempting math operation on data that is not numerical \n" + e);
-                }
-                float solution;
+                leftFloat = left.getNumericValue();
+                rightFloat = right.getNumericValue();
+                double solution;
                 switch(currentOP.getOpType()){
                     case ADD:
                         solution = leftFloat + rightFloat;
-                        if(solution == (int) solution){
-                            return new IDT(String.valueOf((int) solution));
-                        }
-                        else {
-                            return new IDT(String.valueOf(leftFloat + rightFloat));
-                        }
+                        return new IDT(solution, numberFormat);
                     case SUBTRACT:
                         solution = leftFloat - rightFloat;
-                        if(solution == (int) solution){
-                            return new IDT(String.valueOf((int) solution));
-                        }
-                        else {
-                            return new IDT(String.valueOf(leftFloat - rightFloat));
-                        }
+                        return new IDT(solution, numberFormat);
                     case MULTIPLY:
                         solution = leftFloat * rightFloat;
-                        if(solution == (int) solution){
-                            return new IDT(String.valueOf((int) solution));
-                        }
-                        else {
-                            return new IDT(String.valueOf(leftFloat * rightFloat));
-                        }
+                        return new IDT(solution, numberFormat);
                     case DIVIDE:
                         solution = leftFloat / rightFloat;
-                        if(solution == (int) solution){
-                            return new IDT(String.valueOf((int) solution));
-                        }
-                        else {
-                            return new IDT(String.valueOf(leftFloat / rightFloat));
-                        }
+                        return new IDT(solution, numberFormat);
                     case MODULO:
                         solution = leftFloat % rightFloat;
-                        if(solution == (int) solution){
-                            return new IDT(String.valueOf((int) solution));
-                        }
-                        else {
-                            return new IDT(String.valueOf(leftFloat % rightFloat));
-                        }
+                        return new IDT(solution, numberFormat);
                     case EXPONENT:
-                        solution = (float) Math.pow(leftFloat, rightFloat);
-                        if(solution == (int) solution){
-                            return new IDT(String.valueOf((int) solution));
-                        }
-                        else {
-                            return new IDT(String.valueOf(solution));
-                        }
+                        solution = Math.pow(leftFloat, rightFloat);
+                        return new IDT(solution, numberFormat);
                 }
                 throw new RuntimeException("error at math operation");
             }
@@ -776,9 +909,26 @@ public class Interpreter {
                     throw new RuntimeException("right side not found in boolean operation");
                 }
                 int returnVal = -1;
-                try{
-                    leftFloat = Float.parseFloat(left.getData());
-                    rightFloat = Float.parseFloat(right.getData());
+                //$3 == "GET" is compared against the record itself, without cutting the field out of it
+                if(currentOP.getOpType() == OperationNode.operationType.EQ || currentOP.getOpType() == OperationNode.operationType.NE){
+                    Node constant = null;
+                    IDT field = null;
+                    if(record.isUnreadField(left) && currentOP.getRight().get() instanceof ConstantNode){
+                        constant = currentOP.getRight().get();
+                        field = left;
+                    }
+                    else if(record.isUnreadField(right) && currentOP.getLeft() instanceof ConstantNode){
+                        constant = currentOP.getLeft();
+                        field = right;
+                    }
+                    if(constant != null && !isNumericConstant((ConstantNode) constant)){
+                        boolean equal = record.fieldEquals(field, ((ConstantNode) constant).getValue());
+                        return new IDT(equal == (currentOP.getOpType() == OperationNode.operationType.EQ) ? "1" : "0");
+                    }
+                }
+                if(left.isNumeric() && right.isNumeric()){
+                    leftFloat = left.getNumber();
+                    rightFloat = right.getNumber();
 
                     switch (currentOP.getOpType()){
                         case EQ:
@@ -801,7 +951,7 @@ public class Interpreter {
                             break;
                     }
                 }
-                catch (NumberFormatException e){
+                else{
                     int stringComp = left.getData().compareTo(right.getData());
                     switch (currentOP.getOpType()){
                         case EQ:
@@ -832,21 +982,8 @@ public class Interpreter {
                     right = getIDT(currentOP.getRight().get(), locals);
                 }
 
-                boolean leftCond, rightCond =false;
-
-                try{
-                   leftCond = Float.parseFloat(left.getData()) != 0;
-                }
-                catch(NumberFormatException e){
-                    leftCond = false;
-                }
-                if(currentOP.getRight().isPresent()) {
-                    try {
-                        rightCond = Float.parseFloat(right.getData()) != 0;
-                    } catch (NumberFormatException e) {
-                        rightCond = false;
-                    }
-                }
+                boolean leftCond = left.isTrue();
+                boolean rightCond = right != null && right.isTrue();
 
                 if(currentOP.getOpType() == OperationNode.operationType.AND){
                     if(leftCond && rightCond){
@@ -883,72 +1020,33 @@ public class Interpreter {
                         if(!(currentOP.getLeft() instanceof  VariableReferenceNode)){
                             throw new RuntimeException("cannot apply predec to non var argument");
                         }
-                        try{
-                            leftFloat = Float.parseFloat(left.getData()) - 1;
-                            left.setData(String.valueOf(leftFloat));
-                            return left;
-                        }
-                        catch(NumberFormatException e){
-                            left.setData("-1");
-                            return left;
-                        }
+                        left.setNumber(left.getNumericValue() - 1, numberFormat);
+                        return left;
                     case POSTDEC:
                         if(!(currentOP.getLeft() instanceof  VariableReferenceNode)){
                             throw new RuntimeException("cannot apply postdec to non var argument");
                         }
-                        try{
-                            leftFloat = Float.parseFloat(left.getData()) - 1;
-                            IDT leftcopy = new IDT(left.getData());
-
-                            left.setData(String.valueOf(leftFloat));
-                            return leftcopy;
-                        }
-                        catch (NumberFormatException e){
-                            IDT leftcopy = new IDT(left.getData());
-                            left.setData("-1");
-                            return leftcopy;
-                        }
+                        leftFloat = left.getNumericValue();
+                        left.setNumber(leftFloat - 1, numberFormat);
+                        return new IDT(leftFloat, numberFormat);
                     case PREINC:
                         if(!(currentOP.getLeft() instanceof  VariableReferenceNode)){
                             throw new RuntimeException("cannot apply preinc to non var argument");
                         }
-                        try{
-                           leftFloat = Float.parseFloat(left.getData()) + 1;
-                           left.setData(String.valueOf(leftFloat));
-                           return left;
-                        }
-                        catch (NumberFormatException e){
-                            left.setData("1");
-                            return left;
-                        }
+                        left.setNumber(left.getNumericValue() + 1, numberFormat);
+                        return left;
                     case POSTINC:
                         if(!(currentOP.getLeft() instanceof  VariableReferenceNode)){
                             throw new RuntimeException("cannot apply postinc to non var argument");
                         }
-                        try{
-                            leftFloat = Float.parseFloat(left.getData()) + 1;
-                            IDT leftcopy = new IDT(left.getData());
-
-                            left.setData(String.valueOf(leftFloat));
-                            return leftcopy;
-                        }
-                        catch (NumberFormatException e){
-                            IDT leftcopy = new IDT(left.getData());
-                            left.setData("1");
-                            return leftcopy;
-                        }
+                        leftFloat = left.getNumericValue();
+                        left.setNumber(leftFloat + 1, numberFormat);
+                        return new IDT(leftFloat, numberFormat);
                     case UNARYPOS:
-                        return left;
+                        return new IDT(left.getNumericValue(), numberFormat);
                     case UNARYNEG:
-                        try{
-                            leftFloat = Float.parseFloat(left.getData());
-                            leftFloat = leftFloat - (leftFloat * 2);
-                            return new IDT(String.valueOf(leftFloat));
-                        }
-                        catch (NumberFormatException e){
-                            throw new RuntimeException("attempting to apply unary negation operator '-' to var " +
-                                    "or expression that is not numerical");
-                        }
+                        leftFloat = left.getNumericValue();
+                        return new IDT(leftFloat - (leftFloat * 2), numberFormat);
                 }
             }
             else if(currentOP.isMatch()){
@@ -976,16 +1074,13 @@ public class Interpreter {
             }
             else if(currentOP.getOpType() == OperationNode.operationType.DOLLAR){
                 IDT left = getIDT(currentOP.getLeft(), locals);
-                try{
-                    leftFloat = Float.parseFloat(left.getData());
-                }
-                catch(NumberFormatException e){
+                if(!left.isNumeric()){
+                    if(jsonRecords){
+                        return new IDT(record.getJsonValue(left.getData()));
+                    }
                     throw new RuntimeException("attempting to access a field reference with a expression or variable that is not numerical");
                 }
-                if(!globals.containsKey("$" + left.getData())){
-                    globals.put("$" + left.getData(), new IDT("0"));
-                }
-                return globals.get("$" + left.getData());
+                return record.getField((int) left.getNumber());
             }
             else if(currentOP.getOpType() == OperationNode.operationType.IN){
                 IDT left = getIDT(currentOP.getLeft(), locals);
@@ -1007,7 +1102,7 @@ public class Interpreter {
                     }
 
                     if(LocalsOrGlobals.get(rightVar.getVariableName()) instanceof IADT){
-                        if(((IADT) LocalsOrGlobals.get(rightVar.getVariableName())).getIndexes().containsKey(left.getData())){
+                        if(((IADT) LocalsOrGlobals.get(rightVar.getVariableName())).containsKey(left)){
                             return new IDT("1");
                         }
                         else{
@@ -1053,7 +1148,41 @@ public class Interpreter {
                 i++;
             }
 
-            return ((BuiltInFunctionDefinitionNode) node).execute.apply(params);
+            if(call.getRedirect() == FunctionCallNode.redirectType.NONE){
+                return ((BuiltInFunctionDefinitionNode) node).execute.apply(params);
+            }
+            String target = getIDT(call.getRedirectTarget().get(), locals).getData();
+            //point getline at the file or command for the length of this call
+            if(call.getRedirect() == FunctionCallNode.redirectType.INPUT_FILE
+                    || call.getRedirect() == FunctionCallNode.redirectType.INPUT_PIPE){
+                getlineRedirect = call.getRedirect();
+                getlineTarget = target;
+                try{
+                    return ((BuiltInFunctionDefinitionNode) node).execute.apply(params);
+                }
+                finally{
+                    getlineRedirect = FunctionCallNode.redirectType.NONE;
+                }
+            }
+            //point print/printf at the redirection target for the length of this call
+            OutputBuffer previous = output;
+            switch(call.getRedirect()){
+                case WRITE:
+                    output = outputs.getFile(target, false);
+                    break;
+                case APPEND:
+                    output = outputs.getFile(target, true);
+                    break;
+                case PIPE:
+                    output = outputs.getPipe(target);
+                    break;
+            }
+            try{
+                return ((BuiltInFunctionDefinitionNode) node).execute.apply(params);
+            }
+            finally{
+                output = previous;
+            }
         }
         else{
             if(node.getParameters().size() != call.getParams().size()){
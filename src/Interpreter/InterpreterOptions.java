@@ -0,0 +1,22 @@
+package Interpreter;
+
+/**
+ * command line switches that change how the interpreter reads its input and writes its output
+ */
+public class InterpreterOptions {
+
+    //--mmap: memory map the records file and scan it at the byte level instead of streaming it through a reader
+    public boolean memoryMapped = false;
+
+    //--async-output: hand full output buffers to a writer thread instead of writing them on the interpreter thread
+    public boolean asyncOutput = false;
+
+    //--csv: read records and fields as RFC 4180 csv. FS is ignored, fields are separated by commas and may be quoted
+    public boolean csv = false;
+
+    //--json: records are JSON lines, and $"key" looks a key up in the record
+    public boolean json = false;
+
+    //--follow: like tail -f, keep reading the last records file as it grows instead of stopping at its end
+    public boolean follow = false;
+}
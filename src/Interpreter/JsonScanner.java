@@ -0,0 +1,319 @@
+package Interpreter;
+
+/**
+ * pulls single values out of a JSON document without parsing the whole thing. the scanner walks the text once,
+ * following a dotted path of object keys and array indexes ("user.id", "items.0.sku"), and skips every value
+ * that is not on the path without decoding it or building anything for it
+ */
+public class JsonScanner {
+
+    private String text;
+
+    private int position;
+
+    private JsonScanner(String json){
+        text = json;
+        position = 0;
+    }
+
+    /**
+     * @param json the JSON document
+     * @param path object keys and array indexes separated by dots
+     * @return the value at the path as an awk string, or null if the path is not in the document or the document
+     * is malformed. strings are unescaped, true and false become 1 and 0, null becomes the empty string, and
+     * numbers, objects and arrays are returned as their JSON text
+     */
+    public static String get(String json, String path){
+        JsonScanner scanner = new JsonScanner(json);
+        try{
+            return scanner.find(path.isEmpty() ? new String[0] : path.split("\\.", -1));
+        }
+        catch(IllegalArgumentException | IndexOutOfBoundsException e){
+            return null;
+        }
+    }
+
+    private String find(String[] keys){
+        for(String key : keys){
+            skipWhitespace();
+            char c = text.charAt(position);
+            if(c == '{'){
+                if(!findKey(key)){
+                    return null;
+                }
+            }
+            else if(c == '['){
+                int index = arrayIndex(key);
+                if(index == -1 || !findIndex(index)){
+                    return null;
+                }
+            }
+            else{
+                //a scalar has nothing inside it to look up
+                return null;
+            }
+        }
+        skipWhitespace();
+        return decodeValue();
+    }
+
+    /**
+     * @return the path segment as an array index, or -1 if it is not one. read by hand rather than with
+     * Integer.parseInt, since a path that does not fit the document would otherwise throw on every record
+     */
+    private static int arrayIndex(String key){
+        int length = key.length();
+        if(length == 0 || length > 9){
+            return -1;
+        }
+        int index = 0;
+        for(int i = 0; i < length; i++){
+            char c = key.charAt(i);
+            if(c < '0' || c > '9'){
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    /**
+     * moves from the opening brace of an object to the value of one of its keys
+     * @return false if the object does not have the key
+     */
+    private boolean findKey(String key){
+        position++;
+        skipWhitespace();
+        if(text.charAt(position) == '}'){
+            return false;
+        }
+        while(true){
+            skipWhitespace();
+            expect('"');
+            boolean match = matchKey(key);
+            skipWhitespace();
+            expect(':');
+            if(match){
+                return true;
+            }
+            skipValue();
+            skipWhitespace();
+            char c = text.charAt(position++);
+            if(c == '}'){
+                return false;
+            }
+            if(c != ','){
+                throw new IllegalArgumentException("expected , or } in object");
+            }
+        }
+    }
+
+    /**
+     * moves from the opening bracket of an array to one of its elements
+     * @return false if the array is not that long
+     */
+    private boolean findIndex(int index){
+        position++;
+        skipWhitespace();
+        if(text.charAt(position) == ']'){
+            return false;
+        }
+        for(int i = 0; i < index; i++){
+            skipValue();
+            skipWhitespace();
+            char c = text.charAt(position++);
+            if(c == ']'){
+                return false;
+            }
+            if(c != ','){
+                throw new IllegalArgumentException("expected , or ] in array");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * reads an object key, comparing it with the key being looked for as it goes instead of decoding it
+     * @return true if the key matched. the scanner is left past the closing quote either way
+     */
+    private boolean matchKey(String key){
+        int matched = 0;
+        boolean match = true;
+        while(true){
+            char c = text.charAt(position++);
+            if(c == '"'){
+                break;
+            }
+            if(c == '\\'){
+                c = decodeEscape();
+            }
+            if(match && (matched >= key.length() || key.charAt(matched) != c)){
+                match = false;
+            }
+            matched++;
+        }
+        return match && matched == key.length();
+    }
+
+    private String decodeValue(){
+        char c = text.charAt(position);
+        int start = position;
+        switch(c){
+            case '"':
+                position++;
+                return decodeString();
+            case '{':
+            case '[':
+                skipValue();
+                return text.substring(start, position);
+            case 't':
+                expectWord("true");
+                return "1";
+            case 'f':
+                expectWord("false");
+                return "0";
+            case 'n':
+                expectWord("null");
+                return "";
+            default:
+                skipScalar();
+                if(position == start){
+                    throw new IllegalArgumentException("expected a value");
+                }
+                return text.substring(start, position);
+        }
+    }
+
+    /**
+     * decodes a string starting just past its opening quote. a string with no escapes is cut straight out of the text
+     */
+    private String decodeString(){
+        int start = position;
+        while(true){
+            char c = text.charAt(position);
+            if(c == '"'){
+                position++;
+                return text.substring(start, position - 1);
+            }
+            if(c == '\\'){
+                break;
+            }
+            position++;
+        }
+        StringBuilder builder = new StringBuilder(text.substring(start, position));
+        while(true){
+            char c = text.charAt(position++);
+            if(c == '"'){
+                return builder.toString();
+            }
+            builder.append(c == '\\' ? decodeEscape() : c);
+        }
+    }
+
+    /**
+     * decodes the escape starting just past a backslash
+     */
+    private char decodeEscape(){
+        char c = text.charAt(position++);
+        switch(c){
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'u':
+                position += 4;
+                return (char) Integer.parseInt(text.substring(position - 4, position), 16);
+            default:
+                //\" \\ and \/ stand for the character itself
+                return c;
+        }
+    }
+
+    /**
+     * moves past a value of any kind without decoding it
+     */
+    private void skipValue(){
+        skipWhitespace();
+        char c = text.charAt(position);
+        if(c == '"'){
+            position++;
+            skipString();
+        }
+        else if(c == '{' || c == '['){
+            //brackets are counted without telling objects and arrays apart, strings are skipped whole
+            int depth = 0;
+            do{
+                c = text.charAt(position++);
+                if(c == '"'){
+                    skipString();
+                }
+                else if(c == '{' || c == '['){
+                    depth++;
+                }
+                else if(c == '}' || c == ']'){
+                    depth--;
+                }
+            } while(depth > 0);
+        }
+        else{
+            skipScalar();
+        }
+    }
+
+    /**
+     * moves past a string, starting just past its opening quote
+     */
+    private void skipString(){
+        while(true){
+            char c = text.charAt(position++);
+            if(c == '"'){
+                return;
+            }
+            if(c == '\\'){
+                position++;
+            }
+        }
+    }
+
+    /**
+     * moves past a number, true, false or null
+     */
+    private void skipScalar(){
+        while(position < text.length()){
+            char c = text.charAt(position);
+            if(c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r'){
+                return;
+            }
+            position++;
+        }
+    }
+
+    private void skipWhitespace(){
+        while(position < text.length()){
+            char c = text.charAt(position);
+            if(c != ' ' && c != '\t' && c != '\n' && c != '\r'){
+                return;
+            }
+            position++;
+        }
+    }
+
+    private void expect(char c){
+        if(text.charAt(position++) != c){
+            throw new IllegalArgumentException("expected " + c);
+        }
+    }
+
+    private void expectWord(String word){
+        if(!text.startsWith(word, position)){
+            throw new IllegalArgumentException("expected " + word);
+        }
+        position += word.length();
+    }
+}
@@ -1,44 +1,196 @@
 package Interpreter;
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 public class LineManager {
 
-    private List<String> lineList;
+    //records file path that stands for stdin
+    public static final String STDIN_PATH = "-";
 
-    public List<String> getLineList(){
-        return  lineList;
+    //cursor over the file records are currently being pulled from. null before the first file is opened
+    private RecordCursor records;
+
+    //files that have not been started yet, in the order they were given
+    private LinkedList<String> pendingFiles;
+
+    //opens a cursor over the records of a single file
+    private Function<String, RecordCursor> opener;
+
+    //background thread that opens the next file and fills its buffers while the current file is interpreted
+    private ExecutorService prefetcher;
+
+    //the next file, being opened by the prefetcher. null when nothing is being prefetched, in which case the next
+    //pending file is opened when it is reached
+    private Future<RecordCursor> nextRecords;
+
+    private String nextFile;
+
+    //the file followed with --follow, or null. like stdin it is never prefetched, since reading it ahead can block
+    //for as long as nothing is appended to it
+    private String followedFile;
+
+    //the record the next record is read into
+    private Record record;
+
+    public LineManager(LinkedList<String> files, Function<String, RecordCursor> open, Record rec, String followed){
+        record = rec;
+        followedFile = followed;
+        pendingFiles = new LinkedList<>(files);
+        opener = open;
+        prefetcher = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "awk-record-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    public LineManager(List<String> l){
-        lineList = l;
+    /**
+     * hands the next pending file to the prefetch thread. the file is opened and its buffers filled
+     * before the interpreter gets to it. stdin is never prefetched, since BEGIN, getline and commands run before
+     * the main input reaches it may read it themselves. neither is a followed file, which is opened on the
+     * interpreter thread so output is flushed while it waits for the file to grow
+     */
+    private void prefetchNextFile(){
+        if(pendingFiles.isEmpty() || pendingFiles.peek().equals(STDIN_PATH)
+                || pendingFiles.peek().equals(followedFile)){
+            nextRecords = null;
+            nextFile = null;
+            return;
+        }
+        String path = pendingFiles.remove();
+        nextFile = path;
+        nextRecords = prefetcher.submit(() -> {
+            RecordCursor cursor = opener.apply(path);
+            cursor.prefetch();
+            return cursor;
+        });
+    }
+
+    /**
+     * closes the current file and moves on to the next one, resetting FNR and updating FILENAME
+     * @return false if there are no files left
+     */
+    private boolean startNextFile(HashMap<String, IDT> globals){
+        if(records != null){
+            records.close();
+            records = null;
+        }
+        if(nextRecords == null){
+            //nothing was prefetched, which is always the case for the first file, stdin and a followed file
+            if(pendingFiles.isEmpty()){
+                return false;
+            }
+            nextFile = pendingFiles.remove();
+            records = opener.apply(nextFile);
+        }
+        else{
+            try{
+                records = nextRecords.get();
+            }
+            catch(ExecutionException e){
+                if(e.getCause() instanceof RuntimeException){
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException("failed to open records file " + nextFile + "\n" + e.getCause());
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("interrupted while opening records file " + nextFile);
+            }
+        }
+        globals.put("FILENAME", new IDT(nextFile.equals(STDIN_PATH) ? "" : nextFile));
+        globals.put("FNR", new IDT("0"));
+        prefetchNextFile();
+        return true;
     }
 
+    public void close(){
+        if(records != null){
+            records.close();
+            records = null;
+        }
+        //a prefetch that already finished holds an open file that has to be closed
+        if(nextRecords != null && !nextRecords.cancel(true)){
+            try{
+                nextRecords.get().close();
+            }
+            catch(ExecutionException | InterruptedException e){
+                //the file never opened, nothing to close
+            }
+        }
+        nextRecords = null;
+        pendingFiles.clear();
+        prefetcher.shutdownNow();
+    }
+
+    /**
+     * reads the next record into $0. the record is decoded and split lazily, the first time it is looked at
+     * @return false if there are no records left
+     */
     public boolean SplitAndAssign(HashMap<String, IDT> globals){
-        if(lineList.isEmpty()) {
+        if(!advance(globals)){
             return false;
         }
-        String currentLine = lineList.remove(0);
-        globals.put("$0", new IDT(currentLine));
-        String[] splitLine = currentLine.split(globals.get("FS").getData());
-        for(int i = 0; i < splitLine.length; i++){
-            globals.put("$" + (i + 1), new IDT(splitLine[i]));
-        }
-        //setting NF
-        globals.put("NF",new IDT(String.valueOf(splitLine.length)));
-        //incrementing NR and FNR
-        if(globals.containsKey("NR")){
-            globals.get("NR").setData(String.valueOf(Integer.parseInt(globals.get("NR").getData() + 1)));
+        record.readFrom(records);
+        return true;
+    }
+
+    /**
+     * moves to the next record of the input without assigning it to $0, as for getline var
+     * @return the next record, or null if there are no records left
+     */
+    public String nextRecord(HashMap<String, IDT> globals){
+        //$0 stays the same, so it has to be decoded before the cursor moves past it
+        record.detach();
+        if(!advance(globals)){
+            return null;
         }
-        else{
-            globals.put("NR", new IDT("1"));
+        return records.current();
+    }
+
+    /**
+     * moves to the next record of the input, moving on to the next file when the current one runs out.
+     * NR and FNR are incremented. a $0 that was never looked at is not decoded, unless its file is about to be
+     * closed
+     * @return false if there are no records left
+     */
+    private boolean advance(HashMap<String, IDT> globals){
+        String rs = globals.get("RS").getData();
+        while(true){
+            if(records != null){
+                records.setSeparator(rs);
+                if(records.hasNext()){
+                    break;
+                }
+                //$0 outlives its file when the input ends (END can still look at it) or getline var reads on
+                //into the next file
+                record.detach();
+            }
+            if(!startNextFile(globals)){
+                return false;
+            }
         }
-        if(globals.containsKey("FNR")) {
-            globals.get("FNR").setData(String.valueOf(Integer.parseInt(globals.get("FNR").getData()) + 1));
+        records.advance();
+        incrementCount("NR", globals);
+        incrementCount("FNR", globals);
+        return true;
+    }
+
+    /**
+     * increments a record counter global such as NR or FNR
+     */
+    public static void incrementCount(String name, HashMap<String, IDT> globals){
+        if(globals.containsKey(name)){
+            IDT count = globals.get(name);
+            count.setNumber(count.getNumber() + 1);
         }
         else{
-            globals.put("FNR", new IDT("1"));
+            globals.put(name, new IDT("1"));
         }
-        return true;
     }
 }
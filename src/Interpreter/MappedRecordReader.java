@@ -0,0 +1,239 @@
+package Interpreter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * reads records out of a file by memory mapping it in windows and scanning the raw bytes for record boundaries.
+ * a record is only decoded into a String when current is called
+ */
+public class MappedRecordReader implements RecordCursor {
+
+    //default size of a single mapped window. windows are grown if a single record does not fit
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private FileChannel channel;
+
+    private long fileSize;
+
+    private MappedByteBuffer window;
+
+    //file offset of the first byte in the current window
+    private long windowStart;
+
+    //the current window seen as one char per byte, so separators can be found without decoding
+    private WindowView windowText;
+
+    //file offset of the first byte that has not been scanned into a record yet
+    private long position;
+
+    //file offsets of the current record, end exclusive and not including the separator
+    private long recordStart;
+    private long recordEnd;
+
+    //bounds of the next record, found by hasNext before advance moves to it
+    private boolean scanned;
+    private long nextStart;
+    private long nextEnd;
+    private long nextPosition;
+
+    //RS re-encoded so that each char stands for one byte of its UTF-8 form
+    private RecordSeparator separator;
+
+    //true in csv mode, where separators inside double quotes do not end a record
+    private boolean quoted;
+
+    //the current record once it has been decoded
+    private String decoded;
+
+    //scratch space records are copied into before decoding
+    private byte[] scratch = new byte[256];
+
+    public MappedRecordReader(Path path, boolean csv) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileSize = channel.size();
+        position = 0;
+        quoted = csv;
+        separator = new RecordSeparator("\n", quoted);
+        mapWindow(0, WINDOW_SIZE);
+    }
+
+    private void mapWindow(long start, long size) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size, fileSize - start));
+        windowText = new WindowView(window);
+    }
+
+    public void setSeparator(String rs){
+        String byteRS = new String(rs.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+        if(!byteRS.equals(separator.getValue())){
+            separator = new RecordSeparator(byteRS, quoted);
+        }
+    }
+
+    public void prefetch(){
+        if(window != null){
+            window.load();
+        }
+    }
+
+    public boolean hasNext(){
+        if(scanned){
+            return true;
+        }
+        if(channel == null){
+            return false;
+        }
+        try{
+            scanned = scanRecord();
+        }
+        catch(IOException e){
+            throw new RuntimeException("failed to map the next window of the records file \n" + e);
+        }
+        //the file stays open after its last record, which may not have been decoded yet
+        return scanned;
+    }
+
+    /**
+     * moves to the record found by hasNext. the record itself is not decoded
+     */
+    public void advance(){
+        if(!hasNext()){
+            throw new RuntimeException("attempting to advance past the last record");
+        }
+        recordStart = nextStart;
+        recordEnd = nextEnd;
+        position = nextPosition;
+        decoded = null;
+        scanned = false;
+    }
+
+    /**
+     * scans the bytes after position for the bounds of the next record, remapping the window when the record
+     * runs past the end of it
+     * @return false if the file has no records left
+     */
+    private boolean scanRecord() throws IOException {
+        if(position >= fileSize){
+            return false;
+        }
+        long windowSize = WINDOW_SIZE;
+        if(position < windowStart || position >= windowStart + window.limit()){
+            mapWindow(position, windowSize);
+        }
+        while(true){
+            boolean atEnd = windowStart + window.limit() >= fileSize;
+            int from = separator.skipLeading(windowText, (int) (position - windowStart));
+            if(separator.find(windowText, from, atEnd)){
+                nextStart = windowStart + from;
+                nextEnd = windowStart + separator.getSeparatorStart();
+                nextPosition = windowStart + separator.getSeparatorEnd();
+                return true;
+            }
+            if(atEnd){
+                //whatever is left after the last separator is the final record
+                int end = separator.trimFinal(windowText, from, windowText.length());
+                position = fileSize;
+                if(from >= end){
+                    return false;
+                }
+                nextStart = windowStart + from;
+                nextEnd = windowStart + end;
+                nextPosition = fileSize;
+                return true;
+            }
+            //the record runs past the end of the window, remap starting at the record. if the record alone
+            //filled the last window, the window is grown so it fits
+            if(windowStart == position){
+                windowSize *= 2;
+                if(windowSize > Integer.MAX_VALUE){
+                    throw new RuntimeException("record starting at byte " + position + " is too large to be memory mapped");
+                }
+            }
+            mapWindow(position, windowSize);
+        }
+    }
+
+    /**
+     * decodes the record found by the last call to advance
+     * @return the current record as a String
+     */
+    public String current(){
+        if(decoded == null){
+            int length = (int) (recordEnd - recordStart);
+            if(scratch.length < length){
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            try{
+                if(recordStart < windowStart || recordEnd > windowStart + window.limit()){
+                    mapWindow(recordStart, Math.max(WINDOW_SIZE, length));
+                }
+            }
+            catch(IOException e){
+                throw new RuntimeException("failed to map the current record of the records file \n" + e);
+            }
+            window.get((int) (recordStart - windowStart), scratch, 0, length);
+            decoded = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        return decoded;
+    }
+
+    public void close(){
+        if(channel == null){
+            return;
+        }
+        try{
+            channel.close();
+        }
+        catch(IOException e){
+            throw new RuntimeException("failed to close the records file \n" + e);
+        }
+        channel = null;
+    }
+
+    /**
+     * a mapped window seen as a sequence of chars, one per byte. multi byte UTF-8 characters show up as several
+     * chars, which is why RS is re-encoded the same way before it is matched against the window
+     */
+    private static class WindowView implements CharSequence {
+
+        private final MappedByteBuffer bytes;
+
+        private final int offset;
+
+        private final int length;
+
+        WindowView(MappedByteBuffer b){
+            this(b, 0, b.limit());
+        }
+
+        private WindowView(MappedByteBuffer b, int off, int len){
+            bytes = b;
+            offset = off;
+            length = len;
+        }
+
+        public int length(){
+            return length;
+        }
+
+        public char charAt(int index){
+            return (char) (bytes.get(offset + index) & 0xff);
+        }
+
+        public CharSequence subSequence(int start, int end){
+            return new WindowView(bytes, offset + start, end - start);
+        }
+
+        public String toString(){
+            StringBuilder builder = new StringBuilder(length);
+            for(int i = 0; i < length; i++){
+                builder.append(charAt(i));
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package Interpreter;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.IllegalFormatException;
+
+/**
+ * turns numbers into strings the way awk does. whole numbers are written as integers, anything else goes through
+ * CONVFMT, or OFMT when it is printed. %.Ng, the usual value of both, is formatted by hand since java's %g keeps
+ * trailing zeros where C's drops them. each interpreter has its own, holding its CONVFMT and OFMT
+ */
+public class NumberFormatter {
+
+    //largest power of ten a double holds exactly
+    private static final int MAX_EXACT_POWER = NumberScanner.POWERS_OF_TEN.length - 1;
+
+    //most significant digits the fast path of formatGeneral rounds to. the rounded digits have to fit a long
+    //exactly after scaling, which leaves room for 15
+    private static final int MAX_FAST_PRECISION = 15;
+
+    //what CONVFMT and OFMT start out as
+    public static final String DEFAULT_FORMAT = "%.6g";
+
+    //the current values of CONVFMT and OFMT
+    private String convfmt;
+
+    private String ofmt;
+
+    //bumped every time CONVFMT is assigned, so values holding a string made with an older CONVFMT know to remake it
+    private int generation;
+
+    private FormatCell convfmtCell;
+
+    private FormatCell ofmtCell;
+
+    public NumberFormatter(){
+        convfmt = DEFAULT_FORMAT;
+        ofmt = DEFAULT_FORMAT;
+        generation = 0;
+        convfmtCell = new FormatCell(false);
+        ofmtCell = new FormatCell(true);
+    }
+
+    /**
+     * @return the cell holding CONVFMT
+     */
+    public IDT getConvfmtCell(){
+        return convfmtCell;
+    }
+
+    /**
+     * @return the cell holding OFMT
+     */
+    public IDT getOfmtCell(){
+        return ofmtCell;
+    }
+
+    /**
+     * @return the number as a string, as when it is concatenated or used as an array index
+     */
+    public String convert(double num){
+        return format(num, convfmt);
+    }
+
+    /**
+     * @return the number as print writes it
+     */
+    public String output(double num){
+        return format(num, ofmt);
+    }
+
+    /**
+     * @return a count that changes every time CONVFMT is assigned
+     */
+    public int getGeneration(){
+        return generation;
+    }
+
+    /**
+     * @param fmt a printf style format with a single floating point conversion
+     */
+    public static String format(double num, String fmt){
+        if(num == Math.rint(num) && !Double.isInfinite(num)){
+            if(Math.abs(num) < 0x1p63){
+                return Long.toString((long) num);
+            }
+            return new BigDecimal(num).toPlainString();
+        }
+        int precision = generalPrecision(fmt);
+        if(precision != -1){
+            return formatGeneral(num, precision);
+        }
+        try{
+            return String.format(fmt, num);
+        }
+        catch(IllegalFormatException e){
+            //a format like %d wants an integer
+            try{
+                return String.format(fmt, (long) num);
+            }
+            catch(IllegalFormatException e2){
+                throw new RuntimeException("invalid number format " + fmt + "\n" + e2);
+            }
+        }
+    }
+
+    /**
+     * @return N for a format of exactly %.Ng (or %g, which is %.6g), otherwise -1
+     */
+    private static int generalPrecision(String fmt){
+        int length = fmt.length();
+        if(length < 2 || fmt.charAt(0) != '%' || fmt.charAt(length - 1) != 'g'){
+            return -1;
+        }
+        if(length == 2){
+            return 6;
+        }
+        if(fmt.charAt(1) != '.' || length == 3){
+            return -1;
+        }
+        int precision = 0;
+        for(int i = 2; i < length - 1; i++){
+            char c = fmt.charAt(i);
+            if(c < '0' || c > '9'){
+                return -1;
+            }
+            precision = precision * 10 + (c - '0');
+        }
+        return precision;
+    }
+
+    /**
+     * C's %.Ng: N significant digits, in exponent form when the exponent is below -4 or at least N, with
+     * trailing zeros removed
+     */
+    public static String formatGeneral(double num, int precision){
+        if(Double.isNaN(num)){
+            return "nan";
+        }
+        if(Double.isInfinite(num)){
+            return num > 0 ? "inf" : "-inf";
+        }
+        if(num == 0){
+            return 1 / num < 0 ? "-0" : "0";
+        }
+        if(precision == 0){
+            precision = 1;
+        }
+        if(precision > MAX_FAST_PRECISION){
+            return formatGeneralExact(num, precision);
+        }
+        //scale the value so its significant digits are the integer part, then round that. the scaling is a single
+        //multiply or divide by an exact power of ten, so it is off by at most half a unit in the last place, which
+        //only matters when the value is that close to halfway between two roundings
+        double[] powers = NumberScanner.POWERS_OF_TEN;
+        double magnitude = Math.abs(num);
+        int exponent = (int) Math.floor(Math.log10(magnitude));
+        double scaled = 0;
+        for(int attempt = 0; attempt < 2; attempt++){
+            int scale = precision - 1 - exponent;
+            if(scale > MAX_EXACT_POWER || scale < -MAX_EXACT_POWER){
+                return formatGeneralExact(num, precision);
+            }
+            scaled = scale >= 0 ? magnitude * powers[scale] : magnitude / powers[-scale];
+            //log10 can be off by one next to a power of ten
+            if(scaled >= powers[precision]){
+                exponent++;
+            }
+            else if(scaled < powers[precision - 1]){
+                exponent--;
+            }
+            else{
+                break;
+            }
+        }
+        double whole = Math.floor(scaled);
+        double fraction = scaled - whole;
+        if(Math.abs(fraction - 0.5) <= 2 * Math.ulp(scaled)){
+            return formatGeneralExact(num, precision);
+        }
+        long digits = (long) whole + (fraction > 0.5 ? 1 : 0);
+        //rounding up can carry into a new digit, as 9.9999996 does to 10.0000
+        if(digits == (long) powers[precision]){
+            digits /= 10;
+            exponent++;
+        }
+        return layoutGeneral(num < 0, Long.toString(digits), exponent, precision);
+    }
+
+    /**
+     * %.Ng worked out from the exact binary value of the number. slow, but right even when the value sits right
+     * at a rounding boundary
+     */
+    private static String formatGeneralExact(double num, int precision){
+        BigDecimal rounded = new BigDecimal(num).round(new MathContext(precision, RoundingMode.HALF_EVEN));
+        int exponent = rounded.precision() - rounded.scale() - 1;
+        return layoutGeneral(rounded.signum() < 0, rounded.unscaledValue().abs().toString(), exponent, precision);
+    }
+
+    /**
+     * writes out a number rounded for %.Ng
+     * @param digits the significant digits. trailing zeros are dropped
+     * @param exponent the power of ten of the first digit
+     */
+    private static String layoutGeneral(boolean negative, String digits, int exponent, int precision){
+        digits = stripZeros(digits);
+        StringBuilder builder = new StringBuilder(digits.length() + 8);
+        if(negative){
+            builder.append('-');
+        }
+        if(exponent < -4 || exponent >= precision){
+            builder.append(digits.charAt(0));
+            if(digits.length() > 1){
+                builder.append('.').append(digits, 1, digits.length());
+            }
+            builder.append(exponent < 0 ? "e-" : "e+");
+            int power = Math.abs(exponent);
+            if(power < 10){
+                builder.append('0');
+            }
+            builder.append(power);
+        }
+        else if(exponent < 0){
+            builder.append("0.");
+            for(int i = -1; i > exponent; i--){
+                builder.append('0');
+            }
+            builder.append(digits);
+        }
+        else if(digits.length() <= exponent + 1){
+            builder.append(digits);
+            for(int i = digits.length(); i <= exponent; i++){
+                builder.append('0');
+            }
+        }
+        else{
+            builder.append(digits, 0, exponent + 1).append('.').append(digits, exponent + 1, digits.length());
+        }
+        return builder.toString();
+    }
+
+    private static String stripZeros(String digits){
+        int end = digits.length();
+        while(end > 1 && digits.charAt(end - 1) == '0'){
+            end--;
+        }
+        return digits.substring(0, end);
+    }
+
+    /**
+     * the cell behind CONVFMT or OFMT. assigning it changes how numbers are formatted from then on
+     */
+    private class FormatCell extends IDT {
+
+        private boolean output;
+
+        /**
+         * @param forOutput true for OFMT, false for CONVFMT
+         */
+        FormatCell(boolean forOutput){
+            super(DEFAULT_FORMAT);
+            output = forOutput;
+        }
+
+        @Override
+        public void setData(String dat){
+            super.setData(dat);
+            if(output){
+                ofmt = dat;
+            }
+            else{
+                convfmt = dat;
+                generation++;
+            }
+        }
+
+        @Override
+        public void setNumber(double num, NumberFormatter fmt){
+            setData(convert(num));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package Interpreter;
+
+/**
+ * decides whether a string looks numeric by awk's rules, and reads its value, without allocating or throwing.
+ * a numeric string is an optional sign, digits with an optional decimal point and an optional exponent, with
+ * blanks allowed on either side. anything else, including the empty string, is a string. arithmetic on a string
+ * uses its numeric prefix instead, the way C's strtod reads it
+ */
+public class NumberScanner {
+
+    //powers of ten that a double holds exactly. NumberFormatter scales by these as well
+    static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    //most significant digits that are sure to fit in a double exactly
+    private static final int EXACT_DIGITS = 15;
+
+    /**
+     * @return the value of the string, or NaN if it does not look numeric
+     */
+    public static double parse(String str){
+        return scan(str, false);
+    }
+
+    /**
+     * @return the value of the longest numeric prefix of the string, after any leading blanks. "3abc" is 3 and a
+     * string with no numeric prefix, such as "" or "abc", is 0
+     */
+    public static double parsePrefix(String str){
+        return scan(str, true);
+    }
+
+    /**
+     * @param prefix true to read as much of the string as makes a number and ignore the rest, false to return NaN
+     * unless the whole string is a number
+     */
+    private static double scan(String str, boolean prefix){
+        int length = str.length();
+        int i = skipBlanks(str, 0);
+        boolean negative = false;
+        if(i < length && (str.charAt(i) == '+' || str.charAt(i) == '-')){
+            negative = str.charAt(i) == '-';
+            i++;
+        }
+        int numberStart = i;
+
+        //decimal integers, the common case, are read straight into a long
+        long digits = 0;
+        int digitCount = 0;
+        while(i < length && isDigit(str.charAt(i))){
+            if(digitCount < 18){
+                digits = digits * 10 + (str.charAt(i) - '0');
+            }
+            digitCount++;
+            i++;
+        }
+        int end = skipBlanks(str, i);
+        if(end == length || (prefix && !continuesNumber(str, i))){
+            if(digitCount == 0){
+                return prefix ? 0 : Double.NaN;
+            }
+            if(digitCount <= 18){
+                return negative ? -digits : digits;
+            }
+            return Double.parseDouble(str.substring(numberStart, i)) * (negative ? -1 : 1);
+        }
+
+        int fractionDigits = 0;
+        if(i < length && str.charAt(i) == '.'){
+            i++;
+            while(i < length && isDigit(str.charAt(i))){
+                if(digitCount < 18){
+                    digits = digits * 10 + (str.charAt(i) - '0');
+                    fractionDigits++;
+                }
+                digitCount++;
+                i++;
+            }
+        }
+        if(digitCount == 0){
+            return prefix ? 0 : Double.NaN;
+        }
+        int exponent = 0;
+        if(i < length && (str.charAt(i) == 'e' || str.charAt(i) == 'E')){
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if(j < length && (str.charAt(j) == '+' || str.charAt(j) == '-')){
+                negativeExponent = str.charAt(j) == '-';
+                j++;
+            }
+            int exponentStart = j;
+            while(j < length && isDigit(str.charAt(j))){
+                if(exponent < 100000){
+                    exponent = exponent * 10 + (str.charAt(j) - '0');
+                }
+                j++;
+            }
+            if(j == exponentStart){
+                //an e with no digits after it is not part of the number, as in "3e" or "2else"
+                if(!prefix){
+                    return Double.NaN;
+                }
+                exponent = 0;
+            }
+            else{
+                if(negativeExponent){
+                    exponent = -exponent;
+                }
+                i = j;
+            }
+        }
+        int numberEnd = i;
+        if(!prefix && skipBlanks(str, i) != length){
+            return Double.NaN;
+        }
+
+        //a value with few enough digits is exact as a long, and so is the power of ten it is scaled by, so one
+        //multiply or divide gives the correctly rounded result
+        int scale = exponent - fractionDigits;
+        if(digitCount <= EXACT_DIGITS && Math.abs(scale) < POWERS_OF_TEN.length){
+            double value = scale < 0 ? digits / POWERS_OF_TEN[-scale] : digits * POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        double value = Double.parseDouble(str.substring(numberStart, numberEnd));
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return true if the string looks numeric
+     */
+    public static boolean looksNumeric(String str){
+        return !Double.isNaN(parse(str));
+    }
+
+    /**
+     * @return true if the character at i can continue the integer before it, as a decimal point or exponent
+     */
+    private static boolean continuesNumber(String str, int i){
+        char c = str.charAt(i);
+        return c == '.' || c == 'e' || c == 'E';
+    }
+
+    private static int skipBlanks(String str, int i){
+        while(i < str.length()){
+            char c = str.charAt(i);
+            if(c != ' ' && c != '\t' && c != '\n' && c != '\r' && c != '\f' && c != 0x0B){
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c){
+        return c >= '0' && c <= '9';
+    }
+}
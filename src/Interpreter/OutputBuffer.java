@@ -0,0 +1,179 @@
+package Interpreter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * buffers everything print and printf write before it reaches the underlying stream.
+ * output is block buffered, except when it is going to a terminal, where it is flushed at the end of every line.
+ * with write behind, full buffers are handed to a writer thread instead of being written on the interpreter thread
+ */
+public class OutputBuffer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private OutputStream out;
+
+    private byte[] buffer;
+
+    private int count;
+
+    //flush whenever a newline is written instead of only when the buffer fills up
+    private boolean lineBuffered;
+
+    //null unless full buffers are written behind by the queues writer thread
+    private WriteBehindQueue writeBehind;
+
+    private WritableByteChannel channel;
+
+    //true once the reader of the output went away. anything written after that is thrown away
+    private boolean broken;
+
+    public OutputBuffer(OutputStream o, boolean flushEveryLine){
+        out = o;
+        buffer = new byte[BUFFER_SIZE];
+        count = 0;
+        lineBuffered = flushEveryLine;
+    }
+
+    /**
+     * a block buffered output whose full buffers are written to the files channel by the queues writer thread
+     */
+    public OutputBuffer(FileOutputStream o, WriteBehindQueue queue){
+        this(o, false);
+        writeBehind = queue;
+        channel = o.getChannel();
+    }
+
+    /**
+     * @return the size of the buffers a write behind queue has to be created with
+     */
+    public static int bufferSize(){
+        return BUFFER_SIZE;
+    }
+
+    /**
+     * appends a string to the buffer as UTF-8, flushing whenever the buffer fills
+     */
+    public void write(String str){
+        boolean sawNewline = false;
+        int length = str.length();
+        for(int i = 0; i < length; i++){
+            char c = str.charAt(i);
+            if(c >= 0x80){
+                //anything outside of ascii is encoded by the jdk from here on
+                writeBytes(str.substring(i).getBytes(StandardCharsets.UTF_8));
+                sawNewline = sawNewline || str.indexOf('\n', i) != -1;
+                break;
+            }
+            if(count == buffer.length){
+                flushBuffer();
+            }
+            buffer[count++] = (byte) c;
+            if(c == '\n'){
+                sawNewline = true;
+            }
+        }
+        if(lineBuffered && sawNewline){
+            flush();
+        }
+    }
+
+    private void writeBytes(byte[] bytes){
+        int offset = 0;
+        while(offset < bytes.length){
+            if(count == buffer.length){
+                flushBuffer();
+            }
+            int chunk = Math.min(bytes.length - offset, buffer.length - count);
+            System.arraycopy(bytes, offset, buffer, count, chunk);
+            count += chunk;
+            offset += chunk;
+        }
+    }
+
+    private void flushBuffer(){
+        if(count == 0){
+            return;
+        }
+        if(broken){
+            count = 0;
+            return;
+        }
+        if(writeBehind != null){
+            try{
+                buffer = writeBehind.submit(channel, buffer, count);
+            }
+            catch(BrokenPipeException e){
+                broken = true;
+                throw e;
+            }
+            finally{
+                count = 0;
+            }
+            return;
+        }
+        try{
+            out.write(buffer, 0, count);
+        }
+        catch(IOException e){
+            throw writeFailure(e);
+        }
+        finally{
+            //a buffer that failed to write is dropped, so closing the output later does not fail on it again
+            count = 0;
+        }
+    }
+
+    /**
+     * writes out everything that has been buffered so far
+     */
+    public void flush(){
+        flushBuffer();
+        if(broken){
+            return;
+        }
+        if(writeBehind != null){
+            try{
+                writeBehind.sync();
+            }
+            catch(BrokenPipeException e){
+                broken = true;
+                throw e;
+            }
+            return;
+        }
+        try{
+            out.flush();
+        }
+        catch(IOException e){
+            throw writeFailure(e);
+        }
+    }
+
+    /**
+     * @return the exception for a failed write. once the reader has gone away the output is dropped from then on
+     */
+    private RuntimeException writeFailure(IOException e){
+        if(BrokenPipeException.isBrokenPipe(e)){
+            broken = true;
+            return new BrokenPipeException(e);
+        }
+        return new RuntimeException("failed to write output \n" + e);
+    }
+
+    public void close(){
+        flush();
+        try{
+            out.close();
+        }
+        catch(IOException e){
+            //closing a pipe whose reader is gone can fail again on whatever the stream still holds
+            if(!broken){
+                throw new RuntimeException("failed to close output \n" + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package Interpreter;
+import java.io.FileDescriptor;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * keeps track of every place print and printf can write to: stdout, stderr, redirected files and commands.
+ * open files are kept in a least recently used cache so a program writing to thousands of files never runs
+ * out of file descriptors. a file that is evicted is reopened in append mode the next time it is written to
+ */
+public class OutputManager {
+
+    //most files that are kept open at once
+    private static final int MAX_OPEN_FILES = 256;
+
+    private OutputBuffer stdout;
+
+    private OutputBuffer stderr;
+
+    //open files in least to most recently used order
+    private LinkedHashMap<String, OutputBuffer> openFiles;
+
+    //every file opened since it was last closed with close(). these are appended to when reopened instead of truncated
+    private HashSet<String> startedFiles;
+
+    //commands output is piped to. these can not be evicted, since reopening them would start a new command
+    private HashMap<String, Process> pipes;
+
+    private HashMap<String, OutputBuffer> pipeOutputs;
+
+    //writes stdout and files behind the interpreter thread. null unless async output was asked for
+    private WriteBehindQueue writeBehind;
+
+    public OutputManager(boolean terminal, boolean asyncOutput){
+        if(asyncOutput){
+            writeBehind = new WriteBehindQueue(OutputBuffer.bufferSize());
+        }
+        //output to a terminal is flushed line by line, anything else (files, pipes) is block buffered
+        if(writeBehind != null && !terminal){
+            stdout = new OutputBuffer(new FileOutputStream(FileDescriptor.out), writeBehind);
+        }
+        else{
+            stdout = new OutputBuffer(new FileOutputStream(FileDescriptor.out), terminal);
+        }
+        stderr = new OutputBuffer(new FileOutputStream(FileDescriptor.err), true);
+        startedFiles = new HashSet<>();
+        pipes = new HashMap<>();
+        pipeOutputs = new HashMap<>();
+        openFiles = new LinkedHashMap<String, OutputBuffer>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OutputBuffer> eldest){
+                if(size() > MAX_OPEN_FILES){
+                    eldest.getValue().close();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return true if stdout is a terminal. System.console() only says so when stdin is a terminal too, which it
+     * is not in tail -f log | awk, so on linux the file stdout is open on is looked at instead
+     */
+    public static boolean stdoutIsTerminal(){
+        try{
+            String target = Files.readSymbolicLink(Paths.get("/proc/self/fd/1")).toString();
+            return target.startsWith("/dev/pts/") || target.startsWith("/dev/tty") || target.equals("/dev/console");
+        }
+        catch(IOException | UnsupportedOperationException e){
+            //no /proc, as on macos
+            return System.console() != null;
+        }
+    }
+
+    public OutputBuffer getStdout(){
+        return stdout;
+    }
+
+    /**
+     * @param name the file being redirected to
+     * @param append true for >>. with > the file is truncated the first time it is opened, after which
+     *               everything printed to it is appended
+     * @return the buffer writing to the file
+     */
+    public OutputBuffer getFile(String name, boolean append){
+        if(name.equals("/dev/stdout") || name.equals("-")){
+            return stdout;
+        }
+        if(name.equals("/dev/stderr")){
+            return stderr;
+        }
+        OutputBuffer file = openFiles.get(name);
+        if(file == null){
+            try{
+                FileOutputStream stream = new FileOutputStream(name, append || startedFiles.contains(name));
+                file = writeBehind != null ? new OutputBuffer(stream, writeBehind) : new OutputBuffer(stream, false);
+            }
+            catch(FileNotFoundException e){
+                throw new RuntimeException("failed to open output file " + name + "\n" + e);
+            }
+            startedFiles.add(name);
+            openFiles.put(name, file);
+        }
+        return file;
+    }
+
+    /**
+     * @param command the shell command being piped to. the command is started the first time it is used
+     * @return the buffer writing to the commands stdin
+     */
+    public OutputBuffer getPipe(String command){
+        OutputBuffer pipe = pipeOutputs.get(command);
+        if(pipe == null){
+            //anything already printed should come out before the commands output
+            stdout.flush();
+            Process process;
+            try{
+                process = new ProcessBuilder("sh", "-c", command)
+                        .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+            }
+            catch(IOException e){
+                throw new RuntimeException("failed to start output command " + command + "\n" + e);
+            }
+            pipe = new OutputBuffer(process.getOutputStream(), false);
+            pipes.put(command, process);
+            pipeOutputs.put(command, pipe);
+        }
+        return pipe;
+    }
+
+    /**
+     * closes a file or command that output was redirected to
+     * @param name the file name or command
+     * @return the commands exit status for a command, 0 for a file and -1 if nothing by that name was open
+     */
+    public int close(String name){
+        if(openFiles.containsKey(name)){
+            openFiles.remove(name).close();
+            startedFiles.remove(name);
+            return 0;
+        }
+        startedFiles.remove(name);
+        if(pipes.containsKey(name)){
+            pipeOutputs.remove(name).close();
+            try{
+                return pipes.remove(name).waitFor();
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("interrupted while waiting for output command " + name + " to finish");
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param name the file name or command to flush
+     * @return 0 if it was flushed, -1 if nothing by that name was open
+     */
+    public int flush(String name){
+        if(name.equals("/dev/stdout") || name.equals("-")){
+            stdout.flush();
+        }
+        else if(name.equals("/dev/stderr")){
+            stderr.flush();
+        }
+        else if(openFiles.containsKey(name)){
+            openFiles.get(name).flush();
+        }
+        else if(pipeOutputs.containsKey(name)){
+            pipeOutputs.get(name).flush();
+        }
+        else{
+            return -1;
+        }
+        return 0;
+    }
+
+    public void flushAll(){
+        stdout.flush();
+        stderr.flush();
+        for(OutputBuffer file : openFiles.values()){
+            file.flush();
+        }
+        for(OutputBuffer pipe : pipeOutputs.values()){
+            pipe.flush();
+        }
+    }
+
+    /**
+     * flushes stdout and closes every file and command, waiting for the commands to finish and for
+     * everything written behind to be written out. everything is closed even if something fails along the way,
+     * and the first failure is thrown once it is
+     */
+    public void closeAll(){
+        ArrayList<Runnable> steps = new ArrayList<>();
+        steps.add(stdout::flush);
+        steps.add(stderr::flush);
+        for(String name : new HashSet<>(openFiles.keySet())){
+            steps.add(() -> close(name));
+        }
+        for(String command : new HashSet<>(pipes.keySet())){
+            steps.add(() -> close(command));
+        }
+        if(writeBehind != null){
+            steps.add(writeBehind::shutdown);
+        }
+        RuntimeException failure = null;
+        for(Runnable step : steps){
+            try{
+                step.run();
+            }
+            catch(RuntimeException e){
+                if(failure == null){
+                    failure = e;
+                }
+                else{
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if(failure != null){
+            throw failure;
+        }
+    }
+}
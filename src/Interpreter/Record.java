@@ -0,0 +1,399 @@
+package Interpreter;
+import java.util.HashMap;
+
+/**
+ * the current record and its fields. $0 and $1..$NF are cells in an array indexed by field number, and NF is
+ * backed by the field count. the record is only decoded and split when it is first looked at, and splitting only
+ * records where each field starts and ends. a fields string is cut out of the record the first time it is read.
+ * assigning a field or NF marks $0 out of date, and $0 is rebuilt with OFS the next time it is read. assigning $0
+ * splits it again
+ */
+public class Record {
+
+    //FS, RS, FIELDWIDTHS and OFS are read from here
+    private HashMap<String, IDT> globals;
+
+    //turns numbers assigned to $0 or a field into strings with CONVFMT
+    private NumberFormatter numberFormat;
+
+    private FieldSplitter splitter;
+
+    //the highest field the program can look at, or FieldProjection.ALL_FIELDS
+    private int fieldLimit;
+
+    //the cursor $0 still has to be decoded from. null once $0 has been decoded or assigned
+    private RecordCursor source;
+
+    //$0. null while it still has to be decoded from source, or rebuilt from the fields after a field was assigned
+    private String text;
+
+    //the field separator in effect when the record was read, and whether it was read in paragraph mode
+    private String fs;
+
+    private boolean paragraph;
+
+    //FIELDWIDTHS when the record was read
+    private String fieldWidths;
+
+    //true once fields[1..count] hold the fields of the record
+    private boolean fieldsValid;
+
+    //the string the fields were split from. field offsets point into it even after $0 is rebuilt
+    private String splitText;
+
+    //fields[0] is not used, $0 is wholeRecord. every cell past count holds an empty string
+    private FieldCell[] fields;
+
+    private int count;
+
+    private RecordCell wholeRecord;
+
+    private CountCell fieldCount;
+
+    //values looked up in the record as JSON, by path. cleared whenever the record changes
+    private HashMap<String, String> jsonValues;
+
+    public Record(HashMap<String, IDT> globs, NumberFormatter fmt){
+        globals = globs;
+        numberFormat = fmt;
+        splitter = new FieldSplitter();
+        fieldLimit = FieldProjection.ALL_FIELDS;
+        text = "";
+        fs = " ";
+        fieldWidths = "";
+        fieldsValid = true;
+        fields = new FieldCell[16];
+        for(int i = 1; i < fields.length; i++){
+            fields[i] = new FieldCell(i);
+        }
+        count = 0;
+        wholeRecord = new RecordCell();
+        fieldCount = new CountCell();
+        jsonValues = new HashMap<>();
+    }
+
+    /**
+     * @return the cell holding $0
+     */
+    public IDT getRecordCell(){
+        return wholeRecord;
+    }
+
+    /**
+     * @return the cell holding NF
+     */
+    public IDT getCountCell(){
+        return fieldCount;
+    }
+
+    /**
+     * stops splitting records after the given field. fields past it are never split out
+     * @param highestField the highest field the program references, or FieldProjection.ALL_FIELDS
+     */
+    public void setFieldLimit(int highestField){
+        fieldLimit = highestField;
+    }
+
+    /**
+     * switches csv mode on or off. in csv mode records are split into csv fields and FS is ignored
+     */
+    public void setCsv(boolean csv){
+        splitter.setCsv(csv);
+    }
+
+    /**
+     * makes the cursors current record the record. it is not decoded until $0 or a field is looked at, so
+     * detach has to be called before the cursor moves on if the record is to outlive it
+     */
+    public void readFrom(RecordCursor cursor){
+        source = cursor;
+        text = null;
+        startRecord();
+    }
+
+    /**
+     * makes a string the record, as when $0 is assigned or getline reads a record into $0
+     */
+    public void set(String record){
+        source = null;
+        text = record;
+        startRecord();
+    }
+
+    /**
+     * decodes the record if it is still waiting on its cursor, so the cursor can move on to the next record
+     */
+    public void detach(){
+        if(source != null){
+            text = source.current();
+            source = null;
+        }
+    }
+
+    /**
+     * @param index the field number, 0 for the whole record
+     * @return the cell holding the field. a field past NF is empty, and assigning it extends NF
+     */
+    public IDT getField(int index){
+        if(index < 0){
+            throw new RuntimeException("attempting to access negative field $" + index);
+        }
+        if(index == 0){
+            return wholeRecord;
+        }
+        split();
+        ensureCells(index);
+        return fields[index];
+    }
+
+    /**
+     * looks a value up in the record as a JSON document. each path is only scanned for once per record
+     * @param path object keys and array indexes separated by dots, e.g. user.id
+     * @return the value, or the empty string if the record has no value at the path
+     */
+    public String getJsonValue(String path){
+        String value = jsonValues.get(path);
+        if(value == null){
+            value = JsonScanner.get(getText(), path);
+            if(value == null){
+                value = "";
+            }
+            jsonValues.put(path, value);
+        }
+        return value;
+    }
+
+    private void startRecord(){
+        jsonValues.clear();
+        //FS and RS are read now, since changing them only affects records read after the change
+        fs = globals.get("FS").getData();
+        //in paragraph mode newlines separate fields as well as FS
+        paragraph = globals.get("RS").getData().isEmpty();
+        fieldWidths = globals.get("FIELDWIDTHS").getData();
+        fieldsValid = false;
+    }
+
+    private String getText(){
+        detach();
+        if(text == null){
+            rebuild();
+        }
+        return text;
+    }
+
+    private void split(){
+        if(fieldsValid){
+            return;
+        }
+        splitText = getText();
+        splitter.setSeparator(fs, paragraph, fieldWidths);
+        int found = splitter.split(splitText, fieldLimit);
+        ensureCells(found);
+        for(int i = 1; i <= found; i++){
+            fields[i].start = splitter.getStart(i - 1);
+            fields[i].end = splitter.getEnd(i - 1);
+            fields[i].escaped = splitter.isEscaped(i - 1);
+            fields[i].value = null;
+            fields[i].clearNumber();
+        }
+        //fields left over from a longer record
+        for(int i = found + 1; i <= count; i++){
+            fields[i].value = "";
+            fields[i].clearNumber();
+        }
+        count = found;
+        fieldsValid = true;
+    }
+
+    /**
+     * joins the fields with OFS into $0
+     */
+    private void rebuild(){
+        String ofs = globals.get("OFS").getData();
+        StringBuilder builder = new StringBuilder();
+        for(int i = 1; i <= count; i++){
+            if(i > 1){
+                builder.append(ofs);
+            }
+            builder.append(fields[i].getData());
+        }
+        text = builder.toString();
+    }
+
+    /**
+     * compares a field with a string without cutting the fields string out of the record
+     * @param cell a cell returned by getField
+     * @return true if the cell is a field of this record holding exactly str
+     */
+    public boolean fieldEquals(IDT cell, String str){
+        if(!(cell instanceof FieldCell)){
+            return cell.getData().equals(str);
+        }
+        FieldCell field = (FieldCell) cell;
+        if(field.value != null || field.escaped){
+            return field.getData().equals(str);
+        }
+        return field.end - field.start == str.length() && splitText.regionMatches(field.start, str, 0, str.length());
+    }
+
+    /**
+     * @return true if the cell is a field of this record whose string has not been cut out of the record yet
+     */
+    public boolean isUnreadField(IDT cell){
+        return cell instanceof FieldCell && ((FieldCell) cell).value == null;
+    }
+
+    private void ensureCells(int index){
+        if(index < fields.length){
+            return;
+        }
+        FieldCell[] grown = new FieldCell[Math.max(fields.length * 2, index + 1)];
+        System.arraycopy(fields, 0, grown, 0, fields.length);
+        for(int i = fields.length; i < grown.length; i++){
+            grown[i] = new FieldCell(i);
+        }
+        fields = grown;
+    }
+
+    /**
+     * sets NF, dropping fields past it or adding empty fields up to it
+     */
+    private void setCount(int newCount){
+        if(newCount < 0){
+            throw new RuntimeException("attempting to set NF to a negative number");
+        }
+        split();
+        ensureCells(newCount);
+        for(int i = newCount + 1; i <= count; i++){
+            fields[i].value = "";
+            fields[i].clearNumber();
+        }
+        count = newCount;
+        text = null;
+        jsonValues.clear();
+    }
+
+    /**
+     * a field from $1 up. assigning it marks $0 out of date
+     */
+    private class FieldCell extends IDT {
+
+        private int index;
+
+        //where the field is in splitText
+        private int start;
+
+        private int end;
+
+        //true for a quoted csv field with doubled quotes in it
+        private boolean escaped;
+
+        //the fields string. null until the field is first read
+        private String value;
+
+        private FieldCell(int i){
+            index = i;
+            value = "";
+        }
+
+        @Override
+        public String getData(){
+            if(value == null){
+                value = escaped ? FieldSplitter.unescape(splitText, start, end) : splitText.substring(start, end);
+            }
+            return value;
+        }
+
+        @Override
+        public void setData(String dat){
+            //IDT normalizes the number formatting of assigned values
+            super.setData(dat);
+            split();
+            value = super.getData();
+            if(index > count){
+                count = index;
+            }
+            text = null;
+            jsonValues.clear();
+        }
+
+        @Override
+        public void setNumber(double num, NumberFormatter fmt){
+            setData(numberFormat.convert(num));
+        }
+    }
+
+    /**
+     * $0. assigning it splits the record again
+     */
+    private class RecordCell extends IDT {
+
+        @Override
+        public String getData(){
+            return getText();
+        }
+
+        @Override
+        public void setData(String dat){
+            super.setData(dat);
+            set(super.getData());
+        }
+
+        //$0 changes with every record, so its number is not cached
+        @Override
+        public boolean isNumeric(){
+            return NumberScanner.looksNumeric(getText());
+        }
+
+        @Override
+        public double getNumber(){
+            double number = NumberScanner.parse(getText());
+            if(Double.isNaN(number)){
+                throw new NumberFormatException("not a number: " + getText());
+            }
+            return number;
+        }
+
+        @Override
+        public void setNumber(double num, NumberFormatter fmt){
+            setData(numberFormat.convert(num));
+        }
+    }
+
+    /**
+     * NF. reading it splits the record, assigning it truncates or extends the record
+     */
+    private class CountCell extends IDT {
+
+        @Override
+        public String getData(){
+            split();
+            return String.valueOf(count);
+        }
+
+        @Override
+        public double getNumber(){
+            split();
+            return count;
+        }
+
+        @Override
+        public boolean isNumeric(){
+            return true;
+        }
+
+        @Override
+        public void setNumber(double num, NumberFormatter fmt){
+            setCount((int) num);
+        }
+
+        @Override
+        public void setData(String dat){
+            double num = NumberScanner.parse(dat);
+            if(Double.isNaN(num)){
+                throw new RuntimeException("attempting to set NF to a value that is not numerical: " + dat);
+            }
+            setCount((int) num);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package Interpreter;
+
+/**
+ * a forward only cursor over the records of some input. every input backend (file, stdin, memory mapped file...)
+ * implements this so LineManager can dequeue records in constant time without knowing where they come from
+ */
+public interface RecordCursor {
+
+    /**
+     * sets the record separator used to find the end of every record read after this call
+     * @param rs the current value of RS
+     */
+    void setSeparator(String rs);
+
+    /**
+     * fills the cursors buffers ahead of time without consuming a record. called from a background thread before
+     * the cursor is handed to the interpreter
+     */
+    void prefetch();
+
+    /**
+     * @return true if advance can move the cursor to another record
+     */
+    boolean hasNext();
+
+    /**
+     * moves the cursor to the next record. should only be called after hasNext has returned true
+     */
+    void advance();
+
+    /**
+     * @return the record the cursor is currently positioned at
+     */
+    String current();
+
+    /**
+     * releases the underlying input. the cursor has no records left once it has been closed
+     */
+    void close();
+}
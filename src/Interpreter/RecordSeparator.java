@@ -0,0 +1,197 @@
+package Interpreter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * finds record boundaries for a value of RS. RS can be:
+ * a single character, which ends a record wherever it appears
+ * the empty string (paragraph mode), where records are separated by one or more blank lines
+ * anything longer, which is treated as a regex
+ * in csv mode a single character separator inside double quotes does not end the record, so quoted fields
+ * can hold newlines
+ */
+public class RecordSeparator {
+
+    private enum separatorType{
+        CHARACTER, PARAGRAPH, REGEX
+    }
+
+    //where a csv scan is within the current field
+    private enum csvState{
+        FIELD_START, UNQUOTED, QUOTED, QUOTE_IN_QUOTED
+    }
+
+    private String value;
+
+    private separatorType type;
+
+    private char character;
+
+    private Pattern pattern;
+
+    //true in csv mode
+    private boolean quoted;
+
+    //bounds of the separator found by the last successful call to find
+    private int separatorStart;
+    private int separatorEnd;
+
+    public RecordSeparator(String rs, boolean csv){
+        value = rs;
+        quoted = csv;
+        if(rs.isEmpty()){
+            type = separatorType.PARAGRAPH;
+        }
+        else if(rs.length() == 1){
+            type = separatorType.CHARACTER;
+            character = rs.charAt(0);
+        }
+        else{
+            type = separatorType.REGEX;
+            pattern = Pattern.compile(rs);
+        }
+    }
+
+    public String getValue(){
+        return value;
+    }
+
+    public boolean isParagraphMode(){
+        return type == separatorType.PARAGRAPH;
+    }
+
+    public int getSeparatorStart(){
+        return separatorStart;
+    }
+
+    public int getSeparatorEnd(){
+        return separatorEnd;
+    }
+
+    /**
+     * paragraph mode ignores any newlines in front of a record
+     * @return the index the record starting at from actually begins at
+     */
+    public int skipLeading(CharSequence text, int from){
+        if(type == separatorType.PARAGRAPH){
+            while(from < text.length() && text.charAt(from) == '\n'){
+                from++;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * looks for the separator ending the record that starts at from
+     * @param text the input that has been read so far
+     * @param from the start of the record
+     * @param atEnd true if text holds the rest of the input. when false, a separator that could still
+     *              grow with more input is not accepted yet
+     * @return true if a separator was found. its bounds are then available from getSeparatorStart/getSeparatorEnd.
+     * false if more input is needed, or if atEnd is true and the record runs to the end of the input
+     */
+    public boolean find(CharSequence text, int from, boolean atEnd){
+        switch(type){
+            case CHARACTER:
+                if(quoted){
+                    return findCsvCharacter(text, from);
+                }
+                for(int i = from; i < text.length(); i++){
+                    if(text.charAt(i) == character){
+                        foundCharacter(text, from, i);
+                        return true;
+                    }
+                }
+                return false;
+            case PARAGRAPH:
+                for(int i = from; i + 1 < text.length(); i++){
+                    if(text.charAt(i) == '\n' && text.charAt(i + 1) == '\n'){
+                        int end = i + 2;
+                        while(end < text.length() && text.charAt(end) == '\n'){
+                            end++;
+                        }
+                        //more blank lines may still be coming
+                        if(end == text.length() && !atEnd){
+                            return false;
+                        }
+                        separatorStart = i;
+                        separatorEnd = end;
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                Matcher match = pattern.matcher(text);
+                match.region(from, text.length());
+                while(match.find()){
+                    //the match touched the end of the input read so far, more input could change it
+                    if(match.hitEnd() && !atEnd){
+                        return false;
+                    }
+                    if(match.end() > match.start()){
+                        separatorStart = match.start();
+                        separatorEnd = match.end();
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+    /**
+     * finds a single character separator in csv mode, where it does not count inside a quoted field. the record is
+     * always scanned from its start, so whether a character is quoted is known. a quote only opens a quoted field
+     * at the start of a field, as in FieldSplitter
+     */
+    private boolean findCsvCharacter(CharSequence text, int from){
+        csvState state = csvState.FIELD_START;
+        for(int i = from; i < text.length(); i++){
+            char c = text.charAt(i);
+            if(state == csvState.QUOTED){
+                if(c == '"'){
+                    state = csvState.QUOTE_IN_QUOTED;
+                }
+            }
+            else if(c == '"' && state == csvState.QUOTE_IN_QUOTED){
+                //a doubled quote stands for a quote, the field is still quoted
+                state = csvState.QUOTED;
+            }
+            else if(c == '"' && state == csvState.FIELD_START){
+                state = csvState.QUOTED;
+            }
+            else if(c == character){
+                foundCharacter(text, from, i);
+                return true;
+            }
+            else{
+                state = c == ',' ? csvState.FIELD_START : csvState.UNQUOTED;
+            }
+        }
+        return false;
+    }
+
+    private void foundCharacter(CharSequence text, int from, int i){
+        separatorStart = i;
+        separatorEnd = i + 1;
+        //dos line endings are stripped along with the newline
+        if(character == '\n' && i > from && text.charAt(i - 1) == '\r'){
+            separatorStart--;
+        }
+    }
+
+    /**
+     * trims the last record of the input, which is not followed by a separator
+     * @return the index the record ends at
+     */
+    public int trimFinal(CharSequence text, int from, int end){
+        if(type == separatorType.PARAGRAPH){
+            while(end > from && text.charAt(end - 1) == '\n'){
+                end--;
+            }
+        }
+        else if(type == separatorType.CHARACTER && character == '\n' && end > from && text.charAt(end - 1) == '\r'){
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,142 @@
+package Interpreter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * record cursor over a character stream. the stream is read into a buffer in chunks and records are cut out of
+ * the buffer one at a time as the cursor advances, using the current RS
+ */
+public class StreamRecordReader implements RecordCursor {
+
+    private Reader reader;
+
+    //characters read from the stream. the unconsumed ones are buffer[start, end)
+    private char[] buffer;
+    private int start;
+    private int end;
+
+    //true once the stream has no more characters
+    private boolean eof;
+
+    private RecordSeparator separator;
+
+    //true in csv mode, where separators inside double quotes do not end a record
+    private boolean quoted;
+
+    //the record read ahead by hasNext, null if it has not been read yet
+    private String pending;
+
+    private String current;
+
+    public StreamRecordReader(Reader r, int bufferSize, boolean csv){
+        reader = r;
+        buffer = new char[bufferSize];
+        quoted = csv;
+        separator = new RecordSeparator("\n", quoted);
+    }
+
+    public void setSeparator(String rs){
+        if(!rs.equals(separator.getValue())){
+            separator = new RecordSeparator(rs, quoted);
+        }
+    }
+
+    public void prefetch(){
+        if(reader != null && start == end && !eof){
+            fill();
+        }
+    }
+
+    public boolean hasNext(){
+        if(pending != null){
+            return true;
+        }
+        if(reader == null){
+            return false;
+        }
+        pending = readRecord();
+        if(pending == null){
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    public void advance(){
+        if(!hasNext()){
+            throw new RuntimeException("attempting to advance past the last record");
+        }
+        current = pending;
+        pending = null;
+    }
+
+    public String current(){
+        return current;
+    }
+
+    /**
+     * cuts the next record out of the buffer, reading more of the stream until a separator is found
+     * @return the next record, or null if the stream has no records left
+     */
+    private String readRecord(){
+        while(true){
+            CharBuffer text = CharBuffer.wrap(buffer, start, end - start);
+            int recordStart = separator.skipLeading(text, 0);
+            if(separator.find(text, recordStart, eof)){
+                String record = new String(buffer, start + recordStart, separator.getSeparatorStart() - recordStart);
+                start += separator.getSeparatorEnd();
+                return record;
+            }
+            if(eof){
+                //whatever is left after the last separator is the final record
+                int recordEnd = separator.trimFinal(text, recordStart, text.length());
+                String record = recordStart < recordEnd ? new String(buffer, start + recordStart, recordEnd - recordStart) : null;
+                start = end;
+                return record;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * reads the next chunk of the stream into the buffer, compacting or growing the buffer to make room
+     */
+    private void fill(){
+        if(start > 0){
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if(end == buffer.length){
+            char[] bigger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, bigger, 0, end);
+            buffer = bigger;
+        }
+        try{
+            int read = reader.read(buffer, end, buffer.length - end);
+            if(read == -1){
+                eof = true;
+            }
+            else{
+                end += read;
+            }
+        }
+        catch(IOException e){
+            throw new RuntimeException("failed to read the next record from the records file \n" + e);
+        }
+    }
+
+    public void close(){
+        if(reader == null){
+            return;
+        }
+        try{
+            reader.close();
+        }
+        catch(IOException e){
+            throw new RuntimeException("failed to close the records file \n" + e);
+        }
+        reader = null;
+    }
+}
@@ -0,0 +1,297 @@
+package Interpreter;
+
+import java.util.List;
+
+/**
+ * a hash table from strings to values for IADT. entries are kept in parallel arrays of keys, hashes and values
+ * with linear probing, so an entry costs array slots instead of a HashMap node. each key's hash is kept next to
+ * it, so most probes that miss never call equals, and growing the table never hashes a key again.
+ * an element holding a number, as in count[$1]++, is kept as a bare double in its slot. it only gets an IDT of its
+ * own once it is given a string
+ */
+class StringTable {
+
+    private static final int MIN_CAPACITY = 16;
+
+    //multiplier for fibonacci hashing, which spreads String.hashCode over the high bits used as the slot
+    private static final int GOLDEN = 0x9E3779B9;
+
+    //null where the slot is empty
+    private String[] keys;
+
+    private int[] hashes;
+
+    //the value of each element, or null while the element is just the number in numbers
+    private IDT[] values;
+
+    private double[] numbers;
+
+    private int size;
+
+    //slots are the top (32 - shift) bits of the mixed hash
+    private int shift;
+
+    //bumped whenever entries move to other slots, so a cell knows to look its slot up again
+    private int version;
+
+    //formats the bare numbers of elements when they are used as strings
+    private NumberFormatter formatter;
+
+    StringTable(int expected, NumberFormatter fmt){
+        int capacity = MIN_CAPACITY;
+        while(capacity * 2 < expected * 3){
+            capacity *= 2;
+        }
+        allocate(capacity);
+        formatter = fmt;
+    }
+
+    /**
+     * @return true if the table has the key
+     */
+    boolean containsKey(String key){
+        return find(key) != -1;
+    }
+
+    /**
+     * @return the element with the key, which is created as the number 0 if the table does not have it yet. the
+     * element reads and writes the table, so it is not kept anywhere when it is only used as a number
+     */
+    IDT getOrCreate(String key){
+        int slot = find(key);
+        if(slot == -1){
+            slot = insert(key, key.hashCode(), null, 0);
+        }
+        return new ElementCell(key, slot);
+    }
+
+    /**
+     * @return true if the key is new
+     */
+    boolean put(String key, IDT value){
+        int slot = find(key);
+        if(slot != -1){
+            values[slot] = value;
+            return false;
+        }
+        insert(key, key.hashCode(), value, 0);
+        return true;
+    }
+
+    /**
+     * @return true if the table had the key
+     */
+    boolean remove(String key){
+        int i = find(key);
+        if(i == -1){
+            return false;
+        }
+        int mask = keys.length - 1;
+        size--;
+        version++;
+        //shift later entries of the probe run back into the gap, so lookups never need to step over removed slots
+        int gap = i;
+        for(int j = (gap + 1) & mask; keys[j] != null; j = (j + 1) & mask){
+            int home = slot(hashes[j]);
+            boolean movable = gap <= j ? (home <= gap || home > j) : (home <= gap && home > j);
+            if(movable){
+                keys[gap] = keys[j];
+                hashes[gap] = hashes[j];
+                values[gap] = values[j];
+                numbers[gap] = numbers[j];
+                gap = j;
+            }
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        return true;
+    }
+
+    int size(){
+        return size;
+    }
+
+    /**
+     * adds every key to the list, in no particular order
+     */
+    void addKeysTo(List<String> list){
+        for(String key : keys){
+            if(key != null){
+                list.add(key);
+            }
+        }
+    }
+
+    /**
+     * @return the slot holding the key, or -1 if the table does not have it
+     */
+    private int find(String key){
+        int hash = key.hashCode();
+        int mask = keys.length - 1;
+        for(int i = slot(hash); keys[i] != null; i = (i + 1) & mask){
+            if(hashes[i] == hash && keys[i].equals(key)){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * adds a key the table does not have yet
+     * @return the slot it ended up in
+     */
+    private int insert(String key, int hash, IDT value, double number){
+        int mask = keys.length - 1;
+        int i = slot(hash);
+        while(keys[i] != null){
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        hashes[i] = hash;
+        values[i] = value;
+        numbers[i] = number;
+        size++;
+        //at most two thirds full, which keeps probe runs short
+        if(size * 3 > keys.length * 2){
+            resize(keys.length * 2);
+            return find(key);
+        }
+        return i;
+    }
+
+    private int slot(int hash){
+        return (hash * GOLDEN) >>> shift;
+    }
+
+    private void allocate(int capacity){
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new IDT[capacity];
+        numbers = new double[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    }
+
+    private void resize(int capacity){
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        IDT[] oldValues = values;
+        double[] oldNumbers = numbers;
+        allocate(capacity);
+        version++;
+        int mask = capacity - 1;
+        for(int j = 0; j < oldKeys.length; j++){
+            if(oldKeys[j] != null){
+                int i = slot(oldHashes[j]);
+                while(keys[i] != null){
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+                values[i] = oldValues[j];
+                numbers[i] = oldNumbers[j];
+            }
+        }
+    }
+
+    /**
+     * an element of the table as the interpreter sees it. a number assigned to it is stored in the table as a bare
+     * double, a string is stored as an IDT the cell hands everything on to
+     */
+    private class ElementCell extends IDT {
+
+        private String key;
+
+        //where the element was when the table was at version
+        private int slot;
+
+        private int version;
+
+        ElementCell(String k, int s){
+            key = k;
+            slot = s;
+            version = StringTable.this.version;
+        }
+
+        /**
+         * @return the slot the element is in now. an element that was deleted while the cell was held is created
+         * again, as referencing it would
+         */
+        private int slot(){
+            if(version != StringTable.this.version){
+                slot = find(key);
+                if(slot == -1){
+                    slot = insert(key, key.hashCode(), null, 0);
+                }
+                version = StringTable.this.version;
+            }
+            return slot;
+        }
+
+        @Override
+        public String getData(){
+            int i = slot();
+            if(values[i] != null){
+                return values[i].getData();
+            }
+            return formatter.convert(numbers[i]);
+        }
+
+        @Override
+        public void setData(String dat){
+            int i = slot();
+            if(values[i] == null){
+                values[i] = new IDT();
+            }
+            values[i].setData(dat);
+        }
+
+        @Override
+        public String getOutputData(){
+            int i = slot();
+            if(values[i] != null){
+                return values[i].getOutputData();
+            }
+            return formatter.output(numbers[i]);
+        }
+
+        @Override
+        public boolean isNumeric(){
+            int i = slot();
+            return values[i] == null || values[i].isNumeric();
+        }
+
+        @Override
+        public double getNumber(){
+            int i = slot();
+            if(values[i] != null){
+                return values[i].getNumber();
+            }
+            return numbers[i];
+        }
+
+        @Override
+        public void setNumber(double num, NumberFormatter fmt){
+            int i = slot();
+            //a number that another formatter would write differently keeps an IDT, so it remembers which one
+            if(fmt == formatter || num == Math.rint(num)){
+                values[i] = null;
+                numbers[i] = num;
+            }
+            else{
+                values[i] = new IDT(num, fmt);
+            }
+        }
+
+        @Override
+        boolean isNumberValue(){
+            int i = slot();
+            return values[i] == null || values[i].isNumberValue();
+        }
+
+        @Override
+        NumberFormatter getFormatter(){
+            int i = slot();
+            return values[i] == null ? formatter : values[i].getFormatter();
+        }
+    }
+}
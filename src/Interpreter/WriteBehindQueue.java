@@ -0,0 +1,177 @@
+package Interpreter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * a bounded ring of output buffers drained by a dedicated writer thread, so the interpreter thread can keep
+ * formatting output while earlier output is being written. buffers are written in the order they were submitted,
+ * and submit blocks while every slot in the ring is waiting to be written
+ */
+public class WriteBehindQueue {
+
+    private static final int RING_SLOTS = 8;
+
+    //full buffers waiting to be written and the channel each one goes to. slots that have been written hold
+    //empty buffers that are handed back to the interpreter thread in exchange for full ones
+    private byte[][] slots;
+    private int[] lengths;
+    private WritableByteChannel[] channels;
+
+    //slots[head % RING_SLOTS] is the next slot to be written, slots[tail % RING_SLOTS] the next one to be filled
+    private long head;
+    private long tail;
+
+    private boolean shuttingDown;
+
+    //the first error the writer thread hit, rethrown on the interpreter thread
+    private IOException failure;
+
+    private ReentrantLock lock;
+    private Condition notEmpty;
+    private Condition notFull;
+
+    private Thread writer;
+
+    public WriteBehindQueue(int bufferSize){
+        slots = new byte[RING_SLOTS][];
+        for(int i = 0; i < RING_SLOTS; i++){
+            slots[i] = new byte[bufferSize];
+        }
+        lengths = new int[RING_SLOTS];
+        channels = new WritableByteChannel[RING_SLOTS];
+        lock = new ReentrantLock();
+        notEmpty = lock.newCondition();
+        notFull = lock.newCondition();
+        writer = new Thread(this::drain, "awk-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * queues a full buffer to be written, blocking while the ring is full
+     * @param channel where the buffer is written to
+     * @param buffer the buffer. the caller must not touch it after this call
+     * @param length how many bytes of the buffer to write
+     * @return an empty buffer of the same size for the caller to keep filling
+     */
+    public byte[] submit(WritableByteChannel channel, byte[] buffer, int length){
+        lock.lock();
+        try{
+            while(tail - head == RING_SLOTS && failure == null){
+                notFull.awaitUninterruptibly();
+            }
+            checkFailure();
+            int slot = (int) (tail % RING_SLOTS);
+            byte[] empty = slots[slot];
+            slots[slot] = buffer;
+            lengths[slot] = length;
+            channels[slot] = channel;
+            tail++;
+            notEmpty.signal();
+            return empty.length == buffer.length ? empty : new byte[buffer.length];
+        }
+        finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * blocks until everything submitted so far has been written
+     */
+    public void sync(){
+        lock.lock();
+        try{
+            while(head != tail && failure == null){
+                notFull.awaitUninterruptibly();
+            }
+            checkFailure();
+        }
+        finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * writes out everything still queued and stops the writer thread
+     */
+    public void shutdown(){
+        sync();
+        lock.lock();
+        try{
+            shuttingDown = true;
+            notEmpty.signal();
+        }
+        finally{
+            lock.unlock();
+        }
+        try{
+            writer.join();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkFailure(){
+        if(failure != null){
+            if(BrokenPipeException.isBrokenPipe(failure)){
+                throw new BrokenPipeException(failure);
+            }
+            throw new RuntimeException("failed to write output \n" + failure);
+        }
+    }
+
+    /**
+     * body of the writer thread. writes slots in order until shutdown is called
+     */
+    private void drain(){
+        while(true){
+            int slot;
+            lock.lock();
+            try{
+                while(head == tail && !shuttingDown){
+                    notEmpty.awaitUninterruptibly();
+                }
+                if(head == tail){
+                    return;
+                }
+                slot = (int) (head % RING_SLOTS);
+            }
+            finally{
+                lock.unlock();
+            }
+
+            //the slot stays owned by this thread until head moves past it, so it is written outside the lock
+            try{
+                ByteBuffer bytes = ByteBuffer.wrap(slots[slot], 0, lengths[slot]);
+                while(bytes.hasRemaining()){
+                    channels[slot].write(bytes);
+                }
+            }
+            catch(IOException e){
+                lock.lock();
+                try{
+                    failure = e;
+                    notFull.signalAll();
+                }
+                finally{
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try{
+                channels[slot] = null;
+                head++;
+                notFull.signalAll();
+            }
+            finally{
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -3,15 +3,32 @@ package Parser;
 public class ConstantNode extends Node{
 
     public ConstantNode(String val){
+        this(val, false);
+    }
+
+    /**
+     * @param num true if the constant was written as a number rather than as a string literal
+     */
+    public ConstantNode(String val, boolean num){
         value = val;
+        number = num;
     }
 
     private String value;
 
+    private boolean number;
+
     public String getValue(){
         return value;
     }
 
+    /**
+     * @return true for a number literal, which is a number to the interpreter rather than a string
+     */
+    public boolean isNumber(){
+        return number;
+    }
+
     @Override
     public String toString() {
         return "constant Node";
@@ -1,5 +1,6 @@
 package Parser;
 import java.util.LinkedList;
+import java.util.Optional;
 
 public class FunctionCallNode extends StatementNode{
 
@@ -7,6 +8,17 @@ public class FunctionCallNode extends StatementNode{
 
     private LinkedList<Node> params;
 
+    private redirectType redirect;
+
+    private Optional<Node> redirectTarget;
+
+    public enum redirectType{
+        //output redirections for print and printf: > file, >> file, | command
+        NONE, WRITE, APPEND, PIPE,
+        //input redirections for getline: getline < file, command | getline
+        INPUT_FILE, INPUT_PIPE
+    }
+
     public VariableReferenceNode getFuncName() {
         return funcName;
     }
@@ -14,8 +26,29 @@ public class FunctionCallNode extends StatementNode{
     public LinkedList<Node> getParams(){
         return params;
     }
+
+    public redirectType getRedirect(){
+        return redirect;
+    }
+
+    /**
+     * @return the file name or command expression that is redirected to or from. only present when getRedirect is not NONE
+     */
+    public Optional<Node> getRedirectTarget(){
+        return redirectTarget;
+    }
+
     public FunctionCallNode(VariableReferenceNode func, LinkedList<Node> par){
         funcName = func;
         params = par;
+        redirect = redirectType.NONE;
+        redirectTarget = Optional.empty();
+    }
+
+    public FunctionCallNode(VariableReferenceNode func, LinkedList<Node> par, redirectType r, Node target){
+        funcName = func;
+        params = par;
+        redirect = r;
+        redirectTarget = Optional.of(target);
     }
 }
@@ -9,6 +9,10 @@ public class Parser {
 
     private TokenManager tokens;
 
+    //true while parsing the argument list of a print or printf without parentheses, where > starts an
+    //output redirection instead of a comparison
+    private boolean parsingOutputList = false;
+
     public Parser(LinkedList<Token> list) {
         tokens = new TokenManager(list);
     }
@@ -384,6 +388,9 @@ public class Parser {
                     }
                     indexes.add(currentInd.get());
                 } while (tokens.matchAndRemove(Token.TokenType.COMMA).isPresent());
+                if (!tokens.matchAndRemove(Token.TokenType.CLOSE_SQUARE).isPresent()) {
+                    throw new RuntimeException("expected ] after indexes at delete statement");
+                }
                 //return the complete DeleteNode with the array reference and the list of indexes
                 return Optional.of(new DeleteNode(arr, Optional.of(indexes)));
             }
@@ -713,7 +720,7 @@ public class Parser {
             } else {
                 throw new RuntimeException("no/invalid expression found after double equals at line " + tokens.peek(0).get().linenum);
             }
-        } else if (tokens.matchAndRemove(Token.TokenType.GREATERTHAN).isPresent()) {
+        } else if (!parsingOutputList && tokens.matchAndRemove(Token.TokenType.GREATERTHAN).isPresent()) {
             if (acceptSeparators()) {
                 throw new RuntimeException("invalid boolean operation across multiple lines");
             }
@@ -748,6 +755,13 @@ public class Parser {
             if (ex1.get() instanceof ConstantNode && (tokens.moreTokens() && tokens.peek(0).get().type == Token.TokenType.STRINGLITERAL)) {
                 ex1 = Optional.of(new OperationNode(ex1.get(), parseBottomLevel().get(), OperationNode.operationType.CONCATENATION));
             }
+            //command | getline [var]
+            while (tokens.peek(0).isPresent() && tokens.peek(0).get().type == Token.TokenType.ORLINE
+                    && tokens.peek(1).isPresent() && tokens.peek(1).get().type == Token.TokenType.GETLINE) {
+                tokens.matchAndRemove(Token.TokenType.ORLINE);
+                tokens.matchAndRemove(Token.TokenType.GETLINE);
+                ex1 = Optional.of(parseGetline(ex1));
+            }
         }
         return ex1;
     }
@@ -889,8 +903,9 @@ public class Parser {
         Optional<Node> result;
         switch (tokens.peek(0).get().type) {
             case STRINGLITERAL:
+                return Optional.of(new ConstantNode(tokens.matchAndRemove(Token.TokenType.STRINGLITERAL).get().value));
             case NUMBER:
-                return Optional.of(new ConstantNode(tokens.matchAndRemove(tokens.peek(0).get().type).get().value));
+                return Optional.of(new ConstantNode(tokens.matchAndRemove(Token.TokenType.NUMBER).get().value, true));
             case PATTERN:
                 return Optional.of(new PatternNode(tokens.matchAndRemove(Token.TokenType.PATTERN).get().value));
             case OPEN_PAREN:
@@ -898,7 +913,11 @@ public class Parser {
                 if (acceptSeparators()) {
                     throw new RuntimeException("invalid () across multiple lines");
                 }
+                //> inside parentheses is always a comparison
+                boolean outputList = parsingOutputList;
+                parsingOutputList = false;
                 result = parseOperation();
+                parsingOutputList = outputList;
                 if (tokens.peek(0).get().type != Token.TokenType.CLOSE_PAREN) {
                     throw new RuntimeException("no close parenthes found at expression at line " + tokens.peek(0).get().linenum);
                 }
@@ -975,6 +994,8 @@ public class Parser {
             if(tokens.matchAndRemove(Token.TokenType.OPEN_PAREN).isPresent()){
                 Optional<Node> currentParam;
                 LinkedList<Node> params = new LinkedList<>();
+                boolean outputList = parsingOutputList;
+                parsingOutputList = false;
                 //gather function parameters
                 while (!tokens.matchAndRemove(Token.TokenType.CLOSE_PAREN).isPresent()) {
                     currentParam = parseOperation();
@@ -984,6 +1005,7 @@ public class Parser {
                     params.add(currentParam.get());
                     tokens.matchAndRemove(Token.TokenType.COMMA);
                 }
+                parsingOutputList = outputList;
                 //return function call node
                 return Optional.of(new FunctionCallNode((VariableReferenceNode) funcName.get(), params));
             }
@@ -998,7 +1020,7 @@ public class Parser {
         else{
             String builtinName;
             if(tokens.matchAndRemove(Token.TokenType.GETLINE).isPresent()){
-                builtinName = "getline";
+                return Optional.of(parseGetline(Optional.empty()));
             }
             else if(tokens.matchAndRemove(Token.TokenType.PRINT).isPresent()){
                 builtinName = "print";
@@ -1020,18 +1042,23 @@ public class Parser {
             }
             LinkedList<Node> params = new LinkedList<>();
             Optional<Node> currentParam;
+            boolean sawComma = true;
+            boolean isOutput = builtinName.equals("print") || builtinName.equals("printf");
             //gather built in parameters
             if(tokens.moreTokens()) {
                 if(tokens.peek(0).get().type != Token.TokenType.OPEN_PAREN) {
+                    parsingOutputList = isOutput;
                     while (tokens.peek(0).get().type != Token.TokenType.SEPARATOR
-                            && tokens.peek(0).get().type != Token.TokenType.CLOSE_CURLY) {
+                            && tokens.peek(0).get().type != Token.TokenType.CLOSE_CURLY
+                            && !(isOutput && isOutputRedirect(tokens.peek(0).get().type))) {
                         currentParam = parseOperation();
                         if (!currentParam.isPresent()) {
                             throw new RuntimeException("failed to parse parameter at " + builtinName + " call");
                         }
-                        params.add(currentParam.get());
-                        tokens.matchAndRemove(Token.TokenType.COMMA);
+                        addBuiltInParameter(params, currentParam.get(), sawComma);
+                        sawComma = tokens.matchAndRemove(Token.TokenType.COMMA).isPresent();
                     }
+                    parsingOutputList = false;
                 }
                 //built in parameters can also be provided without parentheses
                 else{
@@ -1041,17 +1068,107 @@ public class Parser {
                         if (!currentParam.isPresent()) {
                             throw new RuntimeException("failed to parse parameter at " + builtinName + " call");
                         }
-                        params.add(currentParam.get());
-                        tokens.matchAndRemove(Token.TokenType.COMMA);
+                        addBuiltInParameter(params, currentParam.get(), sawComma);
+                        sawComma = tokens.matchAndRemove(Token.TokenType.COMMA).isPresent();
                     }
                     tokens.matchAndRemove(Token.TokenType.CLOSE_PAREN);
                 }
+                //print and printf output can be redirected to a file (> or >>) or a command (|)
+                if(isOutput && tokens.moreTokens() && isOutputRedirect(tokens.peek(0).get().type)){
+                    FunctionCallNode.redirectType redirect;
+                    if(tokens.matchAndRemove(Token.TokenType.GREATERTHAN).isPresent()){
+                        redirect = FunctionCallNode.redirectType.WRITE;
+                    }
+                    else if(tokens.matchAndRemove(Token.TokenType.BASH).isPresent()){
+                        redirect = FunctionCallNode.redirectType.APPEND;
+                    }
+                    else{
+                        tokens.matchAndRemove(Token.TokenType.ORLINE);
+                        redirect = FunctionCallNode.redirectType.PIPE;
+                    }
+                    Node target = parseRedirectTarget(builtinName);
+                    acceptSeparators();
+                    return Optional.of(new FunctionCallNode(new VariableReferenceNode(builtinName, Optional.empty()), params, redirect, target));
+                }
                 acceptSeparators();
             }
             return Optional.of(new FunctionCallNode(new VariableReferenceNode(builtinName, Optional.empty()), params));
         }
     }
 
+    /**
+     * parses the rest of a getline expression once the getline keyword has been removed. forms include:
+     * getline
+     * getline var
+     * getline < file
+     * getline var < file
+     * command | getline
+     * command | getline var
+     * @param command the command on the left of | getline, if there was one
+     * @return a FunctionCallNode for getline, with the optional var as its only parameter
+     */
+    private FunctionCallNode parseGetline(Optional<Node> command) {
+        LinkedList<Node> params = new LinkedList<>();
+        VariableReferenceNode getline = new VariableReferenceNode("getline", Optional.empty());
+        //the variable the record is read into
+        if (tokens.peek(0).isPresent() && (tokens.peek(0).get().type == Token.TokenType.WORD
+                || tokens.peek(0).get().type == Token.TokenType.DOLLAR)) {
+            params.add(parseLValue().get());
+        }
+        if (command.isPresent()) {
+            return new FunctionCallNode(getline, params, FunctionCallNode.redirectType.INPUT_PIPE, command.get());
+        }
+        if (tokens.matchAndRemove(Token.TokenType.LESSTHAN).isPresent()) {
+            Optional<Node> file = parseBottomLevel();
+            if (!file.isPresent()) {
+                throw new RuntimeException("no file found after < in getline expression");
+            }
+            return new FunctionCallNode(getline, params, FunctionCallNode.redirectType.INPUT_FILE, file.get());
+        }
+        return new FunctionCallNode(getline, params);
+    }
+
+    private boolean isOutputRedirect(Token.TokenType type) {
+        return type == Token.TokenType.GREATERTHAN || type == Token.TokenType.BASH || type == Token.TokenType.ORLINE;
+    }
+
+    /**
+     * parses the file name or command after an output redirection. the target runs to the end of the statement,
+     * with any expressions written next to each other concatenated (print > $1 ".log")
+     * @param builtinName the built in whose output is being redirected
+     * @return the target expression
+     */
+    private Node parseRedirectTarget(String builtinName) {
+        LinkedList<Node> target = new LinkedList<>();
+        while (tokens.moreTokens() && tokens.peek(0).get().type != Token.TokenType.SEPARATOR
+                && tokens.peek(0).get().type != Token.TokenType.CLOSE_CURLY) {
+            Optional<Node> part = parseOperation();
+            if (!part.isPresent()) {
+                throw new RuntimeException("failed to parse output redirection at " + builtinName + " call");
+            }
+            addBuiltInParameter(target, part.get(), false);
+        }
+        if (target.isEmpty()) {
+            throw new RuntimeException("no file or command found after output redirection at " + builtinName + " call");
+        }
+        return target.getFirst();
+    }
+
+    /**
+     * adds a parameter to a built in function call. parameters separated by a comma are separate parameters,
+     * while parameters written next to each other (print $1 $2) are concatenated into one
+     * @param params the parameters gathered so far
+     * @param param the parameter that was just parsed
+     * @param afterComma true if a comma came before param
+     */
+    private void addBuiltInParameter(LinkedList<Node> params, Node param, boolean afterComma) {
+        if (!afterComma && !params.isEmpty()) {
+            params.add(new OperationNode(params.removeLast(), param, OperationNode.operationType.CONCATENATION));
+        } else {
+            params.add(param);
+        }
+    }
+
     /**
      * method responsible for parsing field references and variable references
      * @return either an OperationNode for the field reference, or a VariableReferenceNode for the var reference
@@ -12,7 +12,7 @@ public class TokenManager {
     }
 
     public Optional<Token> peek(int i) {
-        if(this.moreTokens()){
+        if(i < tokens.size()){
             return Optional.of(tokens.get(i));
         }
         return Optional.empty();